@@ -23,12 +23,31 @@ repositories {
     maven("https://repo.papermc.io/repository/maven-public/")
 }
 
+sourceSets {
+    create("vector") {
+        compileClasspath += main.get().output + main.get().compileClasspath
+    }
+
+    // The tests check the vectorized lay kernel against the scalar one
+    test {
+        compileClasspath += getByName("vector").output
+        runtimeClasspath += getByName("vector").output
+    }
+
+    create("jmh") {
+        compileClasspath += main.get().output + getByName("vector").output
+        runtimeClasspath += main.get().output + getByName("vector").output
+    }
+}
+
 dependencies {
     // Core dependencies
     compileOnly(libs.annotations)
     annotationProcessor(libs.annotations)
     compileOnly(libs.paper.api)
     paperLibrary(libs.guice)
+    paperLibrary(libs.hikaricp)
+    paperLibrary(libs.mariadb)
     compileOnly(libs.auto.service.annotations)
     annotationProcessor(libs.auto.service)
 
@@ -39,6 +58,15 @@ dependencies {
     testRuntimeOnly(libs.slf4j)
     testImplementation(platform(libs.testcontainers.bom))
     testImplementation(libs.bundles.testcontainers)
+    testImplementation(libs.paper.api)
+    testImplementation(libs.hikaricp)
+    testRuntimeOnly(libs.mariadb)
+
+    // Benchmarks
+    "jmhImplementation"(libs.paper.api)
+    "jmhImplementation"(libs.annotations)
+    "jmhImplementation"(libs.jmh.core)
+    "jmhAnnotationProcessor"(libs.jmh.generator)
 }
 
 tasks {
@@ -51,6 +79,26 @@ tasks {
         options.compilerArgs.addAll(arrayListOf("-Xlint:all", "-Xlint:-processing", "-Xdiags:verbose"))
     }
 
+    // The vectorized lay kernel is the only code that needs the incubating vector module, so only its source set is
+    // compiled against it. It is only loaded at runtime when the server was started with the module.
+    named<JavaCompile>("compileVectorJava") {
+        options.encoding = Charsets.UTF_8.name()
+        options.compilerArgs.addAll(arrayListOf("--add-modules", "jdk.incubator.vector"))
+    }
+
+    compileTestJava {
+        options.encoding = Charsets.UTF_8.name()
+        options.compilerArgs.addAll(arrayListOf("--add-modules", "jdk.incubator.vector"))
+    }
+
+    named<JavaCompile>("compileJmhJava") {
+        options.encoding = Charsets.UTF_8.name()
+    }
+
+    jar {
+        from(sourceSets["vector"].output)
+    }
+
     javadoc {
         isFailOnError = false
         val options = options as StandardJavadocDocletOptions
@@ -69,6 +117,16 @@ tasks {
     test {
         useJUnitPlatform()
         failFast = false
+        jvmArgs("--add-modules", "jdk.incubator.vector")
+    }
+
+    // Run with -Pjmh.includes=<regex> to only run some of the benchmarks
+    register<JavaExec>("jmh") {
+        group = "verification"
+        description = "Runs the JMH benchmarks."
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        args(project.findProperty("jmh.includes")?.toString() ?: ".*")
     }
 
     runServer {
@@ -0,0 +1,81 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar lay loop with the kernel {@link LayKernel} picks at runtime, which is the vectorized one as the
+ * forks are started with the vector module. Both copy the next lay times back first, as the kernels update them in
+ * place, so the numbers include that copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LayKernelBenchmark {
+
+    private static final int CAP = 64;
+
+    @Param({"64", "1024", "65536"})
+    private int count;
+
+    private long now;
+    private long[] intervals;
+    private int[] amounts;
+    private long[] startLays;
+    private long[] nextLays;
+    private int[] lays;
+    private int[] items;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (!LayKernel.isVectorized()) throw new IllegalStateException("The vectorized lay kernel did not load");
+
+        final SplittableRandom random = new SplittableRandom(42L);
+        this.now = System.currentTimeMillis();
+        this.intervals = new long[count];
+        this.amounts = new int[count];
+        this.startLays = new long[count];
+        this.nextLays = new long[count];
+        this.lays = new int[count];
+        this.items = new int[count];
+
+        // A mix of chickens that are not due yet, due once, and far behind after their chunk was unloaded for a while
+        for (int i = 0; i < count; i++) {
+            intervals[i] = random.nextLong(5_000L, 600_000L);
+            amounts[i] = random.nextInt(1, 5);
+            startLays[i] = now + random.nextLong(-3_600_000L, 60_000L);
+        }
+    }
+
+    @Benchmark
+    public void scalar(final Blackhole blackhole) {
+        System.arraycopy(startLays, 0, nextLays, 0, count);
+        LayKernel.advanceScalar(intervals, amounts, nextLays, lays, items, count, now, CAP);
+        blackhole.consume(items);
+    }
+
+    @Benchmark
+    public void vector(final Blackhole blackhole) {
+        System.arraycopy(startLays, 0, nextLays, 0, count);
+        LayKernel.advance(intervals, amounts, nextLays, lays, items, count, now, CAP);
+        blackhole.consume(items);
+    }
+
+}
\ No newline at end of file
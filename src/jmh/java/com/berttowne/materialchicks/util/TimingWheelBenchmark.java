@@ -0,0 +1,93 @@
+package com.berttowne.materialchicks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scheduling and cancelling a timer on the {@link TimingWheel} with doing the same on a
+ * {@link ScheduledThreadPoolExecutor}, the per-task priority queue that Folia's async scheduler is built on, while a
+ * large number of other timers are pending on both.
+ * <p>
+ * The wheel is driven by the benchmark thread itself, which drains its inboxes after scheduling and again after
+ * cancelling, so that both the placement and the unlinking of the timer are included in the numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TimingWheelBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+    private static final int DELAYS = 1 << 16;
+
+    @Param({"1000", "100000"})
+    private int pending;
+
+    private final long[] delays = new long[DELAYS];
+    private int next;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Expiries and cooldowns, from a second up to ten minutes out
+        final SplittableRandom random = new SplittableRandom(42L);
+        for (int i = 0; i < DELAYS; i++) delays[i] = random.nextLong(1_000L, 600_000L);
+
+        this.wheel = new TimingWheel(50L, TimeUnit.MILLISECONDS);
+        this.executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+
+        for (int i = 0; i < pending; i++) {
+            wheel.schedule(NOOP, delays[i & (DELAYS - 1)], TimeUnit.MILLISECONDS);
+            executor.schedule(NOOP, delays[i & (DELAYS - 1)], TimeUnit.MILLISECONDS);
+        }
+
+        wheel.advance(0L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean wheel() {
+        final TimingWheel.Timeout timeout = wheel.schedule(NOOP, this.nextDelay(), TimeUnit.MILLISECONDS);
+        wheel.advance(0L);
+
+        final boolean cancelled = timeout.cancel();
+        wheel.advance(0L);
+        return cancelled;
+    }
+
+    @Benchmark
+    public boolean executor() {
+        final ScheduledFuture<?> future = executor.schedule(NOOP, this.nextDelay(), TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+    private long nextDelay() {
+        return delays[next++ & (DELAYS - 1)];
+    }
+
+}
\ No newline at end of file
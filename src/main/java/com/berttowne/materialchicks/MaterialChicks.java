@@ -1,5 +1,6 @@
 package com.berttowne.materialchicks;
 
+import com.berttowne.materialchicks.util.TaskProfiler;
 import com.berttowne.materialchicks.util.injection.*;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -18,6 +19,9 @@ public final class MaterialChicks extends JavaPlugin implements InjectionRoot {
 
         this.saveDefaultConfig();
 
+        // Before any service schedules its tasks, as only tasks scheduled while profiling is on are timed
+        TaskProfiler.configure(getConfig().getConfigurationSection("profiling"), getLogger());
+
         // Boot Services and register Listeners
         GuiceServiceLoader.load(Service.class, getClassLoader()).forEach(Service::onLoad);
         GuiceServiceLoader.load(Listener.class, getClassLoader()).forEach(listener -> getServer().getPluginManager().registerEvents(listener, this));
@@ -0,0 +1,168 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.chickens.Chicken;
+import com.berttowne.materialchicks.chickens.ChickenType;
+import com.berttowne.materialchicks.chickens.ChickenTypes;
+import com.berttowne.materialchicks.storage.CoopData;
+import com.berttowne.materialchicks.storage.StorageService;
+import com.berttowne.materialchicks.util.Scheduler;
+import io.papermc.paper.command.brigadier.BasicCommand;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Command for finding out how to breed a chicken type from the chickens a player owns
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class BreedingCommand implements BasicCommand {
+
+    private final BreedingService breedingService;
+    private final StorageService storageService;
+
+    public BreedingCommand(BreedingService breedingService, StorageService storageService) {
+        this.breedingService = breedingService;
+        this.storageService = storageService;
+    }
+
+    @Override
+    public void execute(@NotNull CommandSourceStack commandSourceStack, String @NotNull [] args) {
+        final CommandSender sender = commandSourceStack.getSender();
+
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+            if (!sender.hasPermission("materialchicks.breeding.reload")) {
+                sender.sendMessage(Component.text("You do not have permission to reload chickens and breeding recipes").color(NamedTextColor.RED));
+                return;
+            }
+
+            breedingService.reload().thenRun(() -> sender.sendMessage(Component.text("Reloaded " + ChickenTypes.size()
+                    + " chicken types and " + BreedingRecipes.all().size() + " breeding recipes").color(NamedTextColor.GREEN)));
+            return;
+        }
+
+        if (args.length < 2 || !args[0].equalsIgnoreCase("path")) {
+            sender.sendMessage(Component.text("Usage: /breeding path <chicken type> [shortest|cheapest]").color(NamedTextColor.RED));
+            return;
+        }
+
+        final ChickenType target = ChickenTypes.byName(args[1].toLowerCase());
+        if (target == null) {
+            sender.sendMessage(Component.text("Chicken type not found: " + args[1]).color(NamedTextColor.RED));
+            return;
+        }
+
+        final BreedingPlanner.Mode mode;
+        try {
+            mode = args.length > 2 ? BreedingPlanner.Mode.valueOf(args[2].toUpperCase()) : BreedingPlanner.Mode.CHEAPEST;
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(Component.text("Unknown mode: " + args[2]).color(NamedTextColor.RED));
+            return;
+        }
+
+        final BreedingPlanner planner = breedingService.getPlanner();
+
+        // Without a player to plan for, plan from the base types
+        if (!(commandSourceStack.getExecutor() instanceof Player player)) {
+            planner.plan(target, mode).thenAccept(plan -> this.sendPlan(sender, target, plan));
+            return;
+        }
+
+        // Inventories are read here on the player's region thread, stored coops off it
+        final Set<ChickenType> owned = this.getInventoryTypes(player);
+        final CompletableFuture<Collection<CoopData>> coops = storageService.getCoops(player.getUniqueId());
+
+        Scheduler.thenRunOn(coops.exceptionally(throwable -> List.of()).thenCompose(stored -> {
+            for (final CoopData coop : stored) {
+                for (final CoopData.ChickenData chicken : coop.chickens()) {
+                    final ChickenType type = ChickenTypes.byName(chicken.type());
+                    if (type != null) owned.add(type);
+                }
+            }
+
+            return planner.plan(owned, target, mode);
+        }), player, plan -> this.sendPlan(player, target, plan));
+    }
+
+    @Override
+    public @NotNull Collection<String> suggest(@NotNull CommandSourceStack commandSourceStack, String @NotNull [] args) {
+        final List<String> completions = new ArrayList<>();
+
+        if (args.length <= 1) {
+            final String partial = args.length == 0 ? "" : args[0].toLowerCase();
+            for (final String option : List.of("path", "reload")) {
+                if (option.startsWith(partial)) completions.add(option);
+            }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("path")) {
+            final String partial = args[1].toLowerCase();
+            completions.addAll(ChickenTypes.all().stream()
+                    .map(ChickenType::name)
+                    .filter(name -> name.startsWith(partial))
+                    .toList());
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("path")) {
+            final String partial = args[2].toLowerCase();
+            completions.addAll(Arrays.stream(BreedingPlanner.Mode.values())
+                    .map(mode -> mode.name().toLowerCase())
+                    .filter(name -> name.startsWith(partial))
+                    .toList());
+        }
+
+        return completions;
+    }
+
+    @Override
+    public @Nullable String permission() {
+        return "materialchicks.breeding";
+    }
+
+    private @NotNull Set<ChickenType> getInventoryTypes(final @NotNull Player player) {
+        final Set<ChickenType> types = new HashSet<>();
+
+        for (final ItemStack itemStack : player.getInventory().getContents()) {
+            if (itemStack == null || itemStack.isEmpty()) continue;
+
+            final Chicken chicken = Chicken.fromItemStack(itemStack);
+            if (chicken == null) continue;
+
+            types.add(chicken.getType());
+            chicken.release();
+        }
+
+        return types;
+    }
+
+    private void sendPlan(final @NotNull CommandSender sender, final @NotNull ChickenType target, final @Nullable BreedingPlan plan) {
+        if (plan == null) {
+            sender.sendMessage(target.displayName().append(Component.text(" cannot be bred from the chickens you own").color(NamedTextColor.RED)));
+            return;
+        }
+
+        if (plan.steps().isEmpty()) {
+            sender.sendMessage(Component.text("You already own a ").color(NamedTextColor.GREEN).append(target.displayName()));
+            return;
+        }
+
+        sender.sendMessage(Component.text("Breeding path to ").color(NamedTextColor.GREEN).append(target.displayName())
+                .append(Component.text(String.format(" (%d steps, about %.0f breeds):", plan.steps().size(),
+                        plan.steps().stream().mapToDouble(recipe -> 1.0 / recipe.chance()).sum())).color(NamedTextColor.GREEN)));
+
+        int step = 1;
+        for (final BreedingRecipe recipe : plan.steps()) {
+            sender.sendMessage(Component.text(step++ + ". ").color(NamedTextColor.GRAY)
+                    .append(recipe.first().displayName())
+                    .append(Component.text(" + ").color(NamedTextColor.GRAY))
+                    .append(recipe.second().displayName())
+                    .append(Component.text(" -> ").color(NamedTextColor.GRAY))
+                    .append(recipe.child().displayName())
+                    .append(Component.text(String.format(" (%.0f%%)", recipe.chance() * 100)).color(NamedTextColor.GRAY)));
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.chickens.Chicken;
+import com.berttowne.materialchicks.chickens.ChickenStore;
+import com.berttowne.materialchicks.chickens.ChickenTypes;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Works out the type and stats of the child of two chickens.
+ * <p>
+ * Breeding happens on the region thread owning the parents and is meant to run thousands of times a minute in breeder
+ * coops, so both the recipe lookup and the stat roll work purely on type ids and packed stats and allocate nothing.
+ * Only {@link #breed(Chicken, Chicken, long)} allocates, and only the slot of the child itself.
+ */
+public final class BreedingEngine {
+
+    public static final int MIN_STAT = 1;
+    public static final int MAX_STAT = 10;
+
+    private volatile double mutationChance = 0.25;
+    private volatile int maxMutation = 1;
+
+    /**
+     * Set how likely each stat of a child is to mutate, and how far a single mutation can move it.
+     *
+     * @param mutationChance The chance, between 0 and 1, for each stat to mutate.
+     * @param maxMutation The largest amount a mutation can move a stat up or down.
+     */
+    public void setMutation(final double mutationChance, final int maxMutation) {
+        this.mutationChance = Math.clamp(mutationChance, 0.0, 1.0);
+        this.maxMutation = Math.max(0, maxMutation);
+    }
+
+    /**
+     * Breed two chickens. The child is a new chicken owning its own slot, and must be {@link Chicken#release() released}
+     * once it is no longer needed.
+     *
+     * @param first One of the parents.
+     * @param second The other parent.
+     * @param nextLay The first lay time of the child in epoch milliseconds.
+     * @return The child.
+     */
+    public @NotNull Chicken breed(final @NotNull Chicken first, final @NotNull Chicken second, final long nextLay) {
+        final RandomGenerator random = ThreadLocalRandom.current();
+        final int type = this.childType(first.getType().id(), second.getType().id(), random);
+        final int stats = this.inheritStats(first.getStats(), second.getStats(), random);
+
+        return Chicken.fromPacked(ChickenTypes.byId(type), stats, nextLay);
+    }
+
+    /**
+     * Roll the type of the child of two parent types. When the parents have a recipe and its chance succeeds the child
+     * is the recipe child, otherwise it takes the type of either parent.
+     *
+     * @param first The type id of one of the parents.
+     * @param second The type id of the other parent.
+     * @param random The random to roll with.
+     * @return The type id of the child.
+     */
+    public int childType(final int first, final int second, final @NotNull RandomGenerator random) {
+        final BreedingRecipe recipe = BreedingRecipes.get(first, second);
+        if (recipe != null && random.nextDouble() < recipe.chance()) return recipe.child().id();
+
+        return first == second || random.nextBoolean() ? first : second;
+    }
+
+    /**
+     * Roll the stats of the child of two parents. Every stat starts at the best of both parents, and may then mutate
+     * by up to the configured maximum in either direction, staying between {@value #MIN_STAT} and {@value #MAX_STAT}.
+     *
+     * @param first The stats of one of the parents, packed with {@link ChickenStore#packStats(int, int, int)}.
+     * @param second The stats of the other parent, packed the same way.
+     * @param random The random to roll with.
+     * @return The packed stats of the child.
+     */
+    public int inheritStats(final int first, final int second, final @NotNull RandomGenerator random) {
+        return ChickenStore.packStats(
+                this.inherit(ChickenStore.growth(first), ChickenStore.growth(second), random),
+                this.inherit(ChickenStore.gain(first), ChickenStore.gain(second), random),
+                this.inherit(ChickenStore.strength(first), ChickenStore.strength(second), random));
+    }
+
+    private int inherit(final int first, final int second, final @NotNull RandomGenerator random) {
+        int stat = Math.max(first, second);
+
+        final int max = this.maxMutation;
+        if (max > 0 && random.nextDouble() < mutationChance) stat += random.nextInt(-max, max + 1);
+
+        return Math.clamp(stat, MIN_STAT, MAX_STAT);
+    }
+
+}
\ No newline at end of file
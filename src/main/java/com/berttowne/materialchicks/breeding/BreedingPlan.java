@@ -0,0 +1,19 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.chickens.ChickenType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The breeds needed to reach a chicken type.
+ *
+ * @param target The chicken type the plan reaches.
+ * @param steps The recipes to breed, in order. Every step only needs types that are owned or bred by an earlier step.
+ * @param cost The cost of the plan, counting every step once: the total number of breeding steps when planned for
+ *             {@link BreedingPlanner.Mode#SHORTEST}, or the expected number of breeds when planned for
+ *             {@link BreedingPlanner.Mode#CHEAPEST}.
+ */
+public record BreedingPlan(@NotNull ChickenType target, @NotNull List<BreedingRecipe> steps, double cost) {
+
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.chickens.ChickenType;
+import com.berttowne.materialchicks.chickens.ChickenTypes;
+import com.berttowne.materialchicks.util.Scheduler;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Plans how to breed a target chicken type from the types a player already owns.
+ * <p>
+ * Breeding needs two parents, so the recipe graph is searched as an and-or graph: a type costs nothing if it is owned,
+ * and otherwise the cheapest of its recipes plus what both of its parents cost. The costs of every type for a given set
+ * of owned types form a table that is relaxed to a fixpoint once and then memoized, so every target planned from the
+ * same owned types is a lookup. The table for the base types, those no recipe produces, is built for both modes as soon
+ * as the planner is {@link #rebuild() rebuilt}.
+ * <p>
+ * The table counts a parent that is needed twice, directly or deeper down, twice, as if every branch bred its own
+ * copy. A finished plan breeds every type only once, so its {@link BreedingPlan#cost() cost} is worked out again from
+ * its own steps and can come out lower than the table's. Finding the plan that is cheapest with shared parents counted
+ * once is NP-hard, so plans that share parents are good but not guaranteed to be the cheapest possible.
+ * <p>
+ * All searching happens off the calling thread. Everything cached is dropped when the planner is rebuilt, which should
+ * happen whenever the {@link BreedingRecipes} are reloaded.
+ */
+public final class BreedingPlanner {
+
+    private static final Executor ASYNC = Scheduler::async;
+    private static final int MAX_CACHED_TABLES = 256;
+
+    /**
+     * What a plan minimizes.
+     */
+    public enum Mode {
+        /**
+         * The total number of breeding steps, ignoring how likely they are to succeed.
+         */
+        SHORTEST,
+        /**
+         * The expected number of breeds, counting every recipe as one over its chance.
+         */
+        CHEAPEST
+    }
+
+    private volatile CompletableFuture<Graph> graph = CompletableFuture.completedFuture(new Graph(List.of(), 0));
+
+    /**
+     * Drop every cached result and rebuild the recipe graph from the currently loaded {@link BreedingRecipes}.
+     *
+     * @return A future completed once the graph and the base tables are built.
+     */
+    public @NotNull CompletableFuture<Void> rebuild() {
+        final List<BreedingRecipe> recipes = BreedingRecipes.all();
+        final int types = ChickenTypes.size();
+
+        final CompletableFuture<Graph> rebuilt = CompletableFuture.supplyAsync(() -> {
+            final Graph built = new Graph(recipes, types);
+            for (final Mode mode : Mode.values()) built.table(built.base, mode);
+
+            return built;
+        }, ASYNC);
+
+        this.graph = rebuilt;
+        return rebuilt.thenAccept(built -> { });
+    }
+
+    /**
+     * Plan how to breed a target type from scratch, starting from the base types no recipe produces.
+     *
+     * @param target The type to reach.
+     * @param mode What the plan should minimize.
+     * @return A future completed with the plan, or with {@code null} if the target cannot be bred at all.
+     */
+    public @NotNull CompletableFuture<@Nullable BreedingPlan> plan(final @NotNull ChickenType target, final @NotNull Mode mode) {
+        return graph.thenApply(built -> built.plan(built.base, target, mode));
+    }
+
+    /**
+     * Plan how to breed a target type from the types a player owns.
+     *
+     * @param owned The types the player owns.
+     * @param target The type to reach.
+     * @param mode What the plan should minimize.
+     * @return A future completed with the plan, or with {@code null} if the target cannot be bred from the owned types.
+     */
+    public @NotNull CompletableFuture<@Nullable BreedingPlan> plan(final @NotNull Collection<ChickenType> owned,
+                                                                   final @NotNull ChickenType target, final @NotNull Mode mode) {
+        final BitSet ownedIds = new BitSet();
+        owned.forEach(type -> ownedIds.set(type.id()));
+
+        return graph.thenApplyAsync(built -> built.plan(ownedIds, target, mode), ASYNC);
+    }
+
+    private static final class Graph {
+
+        private final BreedingRecipe[] recipes;
+        private final int types;
+        private final BitSet base = new BitSet();
+        private final Cache<TableKey, Table> tables = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TABLES).build();
+
+        private Graph(final @NotNull List<BreedingRecipe> recipes, final int types) {
+            this.recipes = recipes.stream().filter(recipe -> recipe.chance() > 0.0).toArray(BreedingRecipe[]::new);
+            this.types = types;
+
+            base.set(0, types);
+            for (final BreedingRecipe recipe : this.recipes) base.clear(recipe.child().id());
+        }
+
+        private @Nullable BreedingPlan plan(final @NotNull BitSet owned, final @NotNull ChickenType target, final @NotNull Mode mode) {
+            if (target.id() >= types) return null;
+
+            final Table table = this.table(owned, mode);
+            if (table.costs[target.id()] == Double.POSITIVE_INFINITY) return null;
+
+            final List<BreedingRecipe> steps = new ArrayList<>();
+            this.collect(table, target.id(), new BitSet(), steps);
+
+            // Every step is only bred once, however many times the table counted it
+            double cost = 0.0;
+            for (final BreedingRecipe step : steps) cost += mode == Mode.SHORTEST ? 1.0 : 1.0 / step.chance();
+
+            return new BreedingPlan(target, List.copyOf(steps), cost);
+        }
+
+        private @NotNull Table table(final @NotNull BitSet owned, final @NotNull Mode mode) {
+            try {
+                return tables.get(new TableKey((BitSet) owned.clone(), mode), () -> this.solve(owned, mode));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private @NotNull Table solve(final @NotNull BitSet owned, final @NotNull Mode mode) {
+            final double[] costs = new double[types];
+            final int[] via = new int[types];
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+            Arrays.fill(via, -1);
+            owned.stream().filter(id -> id < types).forEach(id -> costs[id] = 0.0);
+
+            // Costs only ever go down and every recipe costs more than nothing, so this settles within one pass per type
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+
+                for (int i = 0; i < recipes.length; i++) {
+                    final BreedingRecipe recipe = recipes[i];
+                    final double cost = costs[recipe.first().id()] + costs[recipe.second().id()]
+                            + (mode == Mode.SHORTEST ? 1.0 : 1.0 / recipe.chance());
+
+                    if (cost < costs[recipe.child().id()]) {
+                        costs[recipe.child().id()] = cost;
+                        via[recipe.child().id()] = i;
+                        changed = true;
+                    }
+                }
+            }
+
+            return new Table(costs, via);
+        }
+
+        private void collect(final @NotNull Table table, final int type, final @NotNull BitSet visited, final @NotNull List<BreedingRecipe> steps) {
+            if (table.via[type] < 0 || visited.get(type)) return;
+            visited.set(type);
+
+            final BreedingRecipe recipe = recipes[table.via[type]];
+            this.collect(table, recipe.first().id(), visited, steps);
+            this.collect(table, recipe.second().id(), visited, steps);
+            steps.add(recipe);
+        }
+
+    }
+
+    private record TableKey(@NotNull BitSet owned, @NotNull Mode mode) { }
+
+    private record Table(double @NotNull [] costs, int @NotNull [] via) { }
+
+}
\ No newline at end of file
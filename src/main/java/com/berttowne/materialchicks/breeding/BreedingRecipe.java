@@ -0,0 +1,17 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.chickens.ChickenType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A pair of parent types that can breed a child of another type. The order of the parents does not matter.
+ *
+ * @param first One of the parent types.
+ * @param second The other parent type.
+ * @param child The type of the child the parents can produce.
+ * @param chance The chance, between 0 and 1, that a breed produces the child rather than one of the parent types.
+ */
+public record BreedingRecipe(@NotNull ChickenType first, @NotNull ChickenType second, @NotNull ChickenType child,
+                             double chance) {
+
+}
\ No newline at end of file
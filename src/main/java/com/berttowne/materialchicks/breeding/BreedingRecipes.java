@@ -0,0 +1,110 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.chickens.ChickenType;
+import com.berttowne.materialchicks.chickens.ChickenTypes;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Registry of every {@link BreedingRecipe}, built from the {@code breeding.recipes} config list after the
+ * {@link ChickenTypes} are loaded.
+ * <p>
+ * Recipes are indexed by a single {@code long} packing the ids of both parent types, smallest first, so looking up what
+ * two chickens breed into is one primitive hash lookup with no boxing and no allocation.
+ */
+public final class BreedingRecipes {
+
+    private static volatile Long2ObjectMap<BreedingRecipe> recipes = new Long2ObjectOpenHashMap<>();
+    private static volatile List<BreedingRecipe> all = List.of();
+
+    private BreedingRecipes() { }
+
+    /**
+     * Load every recipe from the {@code recipes} list of the given config section. Recipes naming an unknown chicken
+     * type are skipped with a warning.
+     *
+     * @param config The {@code breeding} config section, if any.
+     * @param logger The logger to report invalid recipes to.
+     */
+    public static void load(final @Nullable ConfigurationSection config, final @NotNull Logger logger) {
+        final Long2ObjectMap<BreedingRecipe> loaded = new Long2ObjectOpenHashMap<>();
+        final List<BreedingRecipe> list = new ArrayList<>();
+
+        if (config != null) {
+            for (final Map<?, ?> entry : config.getMapList("recipes")) {
+                final BreedingRecipe recipe = BreedingRecipes.parse(entry, logger);
+                if (recipe == null) continue;
+
+                final BreedingRecipe previous = loaded.put(BreedingRecipes.key(recipe.first().id(), recipe.second().id()), recipe);
+                if (previous != null) {
+                    logger.warning("Duplicate breeding recipe for " + recipe.first().name() + " and " + recipe.second().name()
+                            + ", only the last one is used");
+                    list.remove(previous);
+                }
+
+                list.add(recipe);
+            }
+        }
+
+        all = List.copyOf(list);
+        recipes = loaded;
+    }
+
+    /**
+     * Pack two chicken type ids into a recipe key. The key is the same no matter the order of the ids.
+     *
+     * @param first The id of one of the parent types.
+     * @param second The id of the other parent type.
+     * @return The packed key.
+     */
+    public static long key(final int first, final int second) {
+        return first <= second ? (long) first << 32 | second : (long) second << 32 | first;
+    }
+
+    /**
+     * Get the recipe for two parent types.
+     *
+     * @param first The id of one of the parent types.
+     * @param second The id of the other parent type.
+     * @return The {@link BreedingRecipe} for the parents, or {@code null} if they have none.
+     */
+    public static @Nullable BreedingRecipe get(final int first, final int second) {
+        return recipes.get(BreedingRecipes.key(first, second));
+    }
+
+    /**
+     * Get every loaded recipe.
+     *
+     * @return An unmodifiable list of all recipes.
+     */
+    public static @NotNull List<BreedingRecipe> all() {
+        return all;
+    }
+
+    private static @Nullable BreedingRecipe parse(final @NotNull Map<?, ?> entry, final @NotNull Logger logger) {
+        if (!(entry.get("parents") instanceof List<?> parents) || parents.size() != 2 || !(entry.get("child") instanceof String child)) {
+            logger.warning("Invalid breeding recipe " + entry + ", it needs two parents and a child");
+            return null;
+        }
+
+        final ChickenType first = ChickenTypes.byName(String.valueOf(parents.get(0)));
+        final ChickenType second = ChickenTypes.byName(String.valueOf(parents.get(1)));
+        final ChickenType childType = ChickenTypes.byName(child);
+        if (first == null || second == null || childType == null) {
+            logger.warning("Breeding recipe " + entry + " uses an unknown chicken type, skipping it");
+            return null;
+        }
+
+        final double chance = entry.get("chance") instanceof Number number ? number.doubleValue() : 1.0;
+        return new BreedingRecipe(first, second, childType, Math.clamp(chance, 0.0, 1.0));
+    }
+
+}
\ No newline at end of file
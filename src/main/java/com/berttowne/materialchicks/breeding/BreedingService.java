@@ -0,0 +1,63 @@
+package com.berttowne.materialchicks.breeding;
+
+import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.chickens.ChickenService;
+import com.berttowne.materialchicks.storage.StorageService;
+import com.berttowne.materialchicks.util.injection.Service;
+import com.google.auto.service.AutoService;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+@Singleton
+@AutoService(Service.class)
+@SuppressWarnings("UnstableApiUsage")
+public class BreedingService implements Service {
+
+    private final MaterialChicks plugin;
+    private final StorageService storageService;
+    private final ChickenService chickenService;
+    private final BreedingPlanner planner = new BreedingPlanner();
+
+    @Inject
+    public BreedingService(MaterialChicks plugin, StorageService storageService, ChickenService chickenService) {
+        this.plugin = plugin;
+        this.storageService = storageService;
+        this.chickenService = chickenService;
+    }
+
+    @Override
+    public void onEnable() {
+        // The recipes themselves are loaded along with the chicken types in ChickenService#onLoad
+        this.rebuildPlanner();
+
+        plugin.getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, event ->
+                event.registrar().register("breeding", "Find out how to breed a chicken type", new BreedingCommand(this, storageService)));
+    }
+
+    /**
+     * Reload the chicken settings and breeding recipes from the config and rebuild every cached breeding plan.
+     * See {@link ChickenService#reload()}.
+     *
+     * @return A future completed once the planner is rebuilt.
+     */
+    public CompletableFuture<Void> reload() {
+        chickenService.reload();
+
+        return this.rebuildPlanner();
+    }
+
+    public BreedingPlanner getPlanner() {
+        return planner;
+    }
+
+    private CompletableFuture<Void> rebuildPlanner() {
+        return planner.rebuild().whenComplete((ignored, throwable) -> {
+            if (throwable != null) plugin.getLogger().log(Level.SEVERE, "Unable to build the breeding planner", throwable);
+        });
+    }
+
+}
\ No newline at end of file
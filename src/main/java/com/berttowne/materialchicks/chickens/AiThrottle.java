@@ -0,0 +1,230 @@
+package com.berttowne.materialchicks.chickens;
+
+import com.berttowne.materialchicks.util.Scheduler;
+import com.google.common.collect.Maps;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Mob;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Freezes the AI of chicken entities that no player is close enough to see, and thaws it again once one comes near.
+ * <p>
+ * A frozen chicken is simply made {@link Mob#setAware(boolean) unaware}, so the server skips its goal selector and
+ * pathfinding entirely while it keeps laying as usual. Every tracked chicken is checked once per interval: the checks
+ * are grouped by 16 by 16 chunk section, the unit Folia builds its regions from, and run as one task per section on
+ * its region. Chickens that have to be thawed are spread over the following ticks in small batches through the entity
+ * scheduler, so a player walking into a large pen does not wake every chicken in the same tick.
+ * <p>
+ * The sections are kept in an index that is only ever updated on the threads owning the chickens: when a chicken is
+ * tracked, and when a check finds it has wandered into another section. The async task starting the checks only reads
+ * that index, so it never touches an entity. The number of frozen chickens is counted per section as well.
+ */
+public final class AiThrottle {
+
+    // Block coordinates to 16 by 16 chunk sections
+    private static final int SECTION_SHIFT = 8;
+
+    private final Map<Mob, SectionKey> tracked = Maps.newConcurrentMap();
+    private final Map<SectionKey, Section> sections = Maps.newConcurrentMap();
+    private final Map<UUID, SectionKey> frozen = Maps.newConcurrentMap();
+    private final Map<SectionKey, AtomicInteger> counters = Maps.newConcurrentMap();
+
+    private ScheduledTask checkTask;
+    private volatile double radius = 32.0;
+    private volatile int thawBatchSize = 16;
+
+    /**
+     * Start checking every tracked chicken. If the throttle is already running, it carries on with the new settings
+     * and keeps every chicken it tracks, e.g. after a config reload.
+     *
+     * @param radius The distance in blocks within which a player keeps the AI of a chicken running.
+     * @param interval The number of ticks between two checks of a chicken.
+     * @param thawBatchSize The most chickens thawed in a single tick.
+     */
+    public synchronized void start(final double radius, final long interval, final int thawBatchSize) {
+        if (this.checkTask != null) this.checkTask.cancel();
+
+        this.radius = radius;
+        this.thawBatchSize = Math.max(1, thawBatchSize);
+
+        final long millis = Math.max(1L, interval) * 50L;
+        this.checkTask = Scheduler.repeatAsync(this::check, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop checking chickens and thaw every frozen chicken owned by the calling thread. On Folia, chickens owned by
+     * other regions are thawed when they are next loaded and tracked.
+     */
+    public synchronized void stop() {
+        if (this.checkTask != null) {
+            this.checkTask.cancel();
+            this.checkTask = null;
+        }
+
+        for (final Mob mob : tracked.keySet()) {
+            if (Bukkit.isOwnedByCurrentRegion(mob)) this.thaw(mob);
+        }
+
+        tracked.clear();
+        sections.clear();
+
+        // Chickens left frozen in other regions are no longer known as frozen, so track() thaws them when they load
+        frozen.clear();
+        counters.clear();
+    }
+
+    /**
+     * Start throttling a chicken entity. Must be called on the thread owning the entity. A chicken that was saved
+     * while frozen, e.g. when the server crashed, is thawed right away.
+     *
+     * @param mob The chicken entity.
+     */
+    public void track(final @NotNull Mob mob) {
+        if (!mob.isAware() && !frozen.containsKey(mob.getUniqueId())) mob.setAware(true);
+
+        this.index(mob, mob.getLocation());
+    }
+
+    /**
+     * Stop throttling a chicken entity and thaw it right away. Must be called on the thread owning the entity, e.g.
+     * before it is unloaded so that it is never saved frozen.
+     *
+     * @param mob The chicken entity.
+     */
+    public void untrack(final @NotNull Mob mob) {
+        final SectionKey key = tracked.remove(mob);
+        if (key != null) this.unindex(mob, key);
+
+        this.thaw(mob);
+    }
+
+    /**
+     * Get the number of frozen chickens per chunk section.
+     *
+     * @return A snapshot of the frozen chicken counts, keyed by {@code world:sectionX,sectionZ}.
+     */
+    public @NotNull Map<String, Integer> getFrozenCounts() {
+        final Map<String, Integer> counts = new TreeMap<>();
+        counters.forEach((key, count) -> {
+            if (count.get() > 0) counts.put(key.toString(), count.get());
+        });
+
+        return counts;
+    }
+
+    /**
+     * Get the total number of frozen chickens.
+     *
+     * @return The number of chickens whose AI is currently frozen.
+     */
+    public int getFrozenCount() {
+        return frozen.size();
+    }
+
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    private void check() {
+        for (final Section section : sections.values()) {
+            Scheduler.run(section.anchor, () -> this.check(List.copyOf(section.mobs)));
+        }
+    }
+
+    private void check(final @NotNull List<Mob> batch) {
+        int thawing = 0;
+
+        for (final Mob mob : batch) {
+            if (!mob.isValid() || !tracked.containsKey(mob)) continue;
+
+            // The chicken wandered into another region since it was indexed
+            if (!Bukkit.isOwnedByCurrentRegion(mob)) {
+                Scheduler.run(mob, () -> this.check(List.of(mob)));
+                continue;
+            }
+
+            final Location location = mob.getLocation();
+            this.index(mob, location);
+
+            if (location.getNearbyPlayers(radius).isEmpty()) {
+                this.freeze(mob);
+            } else if (frozen.containsKey(mob.getUniqueId())) {
+                final long delay = 1L + thawing++ / thawBatchSize;
+                Scheduler.later(mob, () -> this.thaw(mob), delay);
+            }
+        }
+    }
+
+    private void freeze(final @NotNull Mob mob) {
+        final SectionKey key = SectionKey.of(mob.getLocation());
+        if (frozen.putIfAbsent(mob.getUniqueId(), key) != null) return;
+
+        mob.setAware(false);
+        counters.computeIfAbsent(key, ignored -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void thaw(final @NotNull Mob mob) {
+        final SectionKey key = frozen.remove(mob.getUniqueId());
+        if (key == null) return;
+
+        mob.setAware(true);
+        counters.get(key).decrementAndGet();
+    }
+
+    /**
+     * Put a chicken into the section holding a location, moving it out of the section it was in before. Must be called
+     * on the thread owning the chicken.
+     */
+    private void index(final @NotNull Mob mob, final @NotNull Location location) {
+        final SectionKey key = SectionKey.of(location);
+        final SectionKey previous = tracked.put(mob, key);
+        if (key.equals(previous)) return;
+
+        if (previous != null) this.unindex(mob, previous);
+
+        // Any loaded location inside the section will do to find its region, so the first one seen is kept
+        sections.compute(key, (ignored, section) -> {
+            final Section updated = section == null ? new Section(location.clone()) : section;
+            updated.mobs.add(mob);
+            return updated;
+        });
+    }
+
+    private void unindex(final @NotNull Mob mob, final @NotNull SectionKey key) {
+        sections.computeIfPresent(key, (ignored, section) -> {
+            section.mobs.remove(mob);
+            return section.mobs.isEmpty() ? null : section;
+        });
+    }
+
+    private static final class Section {
+
+        private final Location anchor;
+        private final Set<Mob> mobs = Collections.newSetFromMap(Maps.newConcurrentMap());
+
+        private Section(final @NotNull Location anchor) {
+            this.anchor = anchor;
+        }
+
+    }
+
+    private record SectionKey(String world, int x, int z) {
+
+        private static @NotNull SectionKey of(final @NotNull Location location) {
+            return new SectionKey(location.getWorld().getName(), location.getBlockX() >> SECTION_SHIFT, location.getBlockZ() >> SECTION_SHIFT);
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return world + ":" + x + "," + z;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -1,91 +1,187 @@
 package com.berttowne.materialchicks.chickens;
 
-import com.berttowne.materialchicks.MaterialChicks;
-import com.berttowne.materialchicks.util.item.ItemBuilder;
-import io.papermc.paper.registry.RegistryAccess;
-import io.papermc.paper.registry.RegistryKey;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
-import org.apache.commons.lang3.text.WordUtils;
-import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Objects;
 
+/**
+ * Thin view over a chicken held in the {@link ChickenStore}. The view itself only carries the id of its slot, so a
+ * chicken costs a handful of primitive array entries no matter how many are stored.
+ * <p>
+ * A chicken created through its constructor owns its slot until {@link #release()} is called.
+ */
 public class Chicken {
 
-    private final org.bukkit.entity.Chicken.Variant variant;
-    private final String chickenType;
+    private static final ChickenStore STORE = ChickenStore.INSTANCE;
 
-    private int growth;
-    private int gain;
-    private int strength;
-    private Instant nextLay;
+    private final long id;
 
     public Chicken(String chickenType, int growth, int gain, int strength, Instant nextLay) {
-        this.chickenType = chickenType;
-        this.variant = RegistryAccess.registryAccess().getRegistry(RegistryKey.CHICKEN_VARIANT)
-                .getOrThrow(NamespacedKey.fromString(chickenType + "_chicken", MaterialChicks.getPlugin(MaterialChicks.class)));
-        this.growth = growth;
-        this.gain = gain;
-        this.strength = strength;
-        this.nextLay = nextLay;
+        this(ChickenTypes.byNameOrThrow(chickenType), growth, gain, strength, nextLay);
+    }
+
+    public Chicken(ChickenType type, int growth, int gain, int strength, Instant nextLay) {
+        this(type, ChickenStore.packStats(growth, gain, strength), nextLay.toEpochMilli());
+    }
+
+    private Chicken(ChickenType type, int stats, long nextLay) {
+        this.id = STORE.allocate(type.id(), stats, nextLay);
+    }
+
+    /**
+     * Create a chicken from its packed stats and next lay time, as kept in storage.
+     *
+     * @param type The type of the chicken.
+     * @param stats The growth, gain and strength packed with {@link ChickenStore#packStats(int, int, int)}.
+     * @param nextLay The next lay time in epoch milliseconds.
+     * @return The new chicken.
+     */
+    public static Chicken fromPacked(ChickenType type, int stats, long nextLay) {
+        return new Chicken(type, stats, nextLay);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public ChickenType getType() {
+        return ChickenTypes.byId(STORE.getType(id));
     }
 
     public String getChickenType() {
-        return chickenType;
+        return getType().name();
+    }
+
+    /**
+     * Get the growth, gain and strength of this chicken packed with {@link ChickenStore#packStats(int, int, int)}.
+     *
+     * @return The packed stats.
+     */
+    public int getStats() {
+        return STORE.getStats(id);
     }
 
     public int getGrowth() {
-        return growth;
+        return ChickenStore.growth(STORE.getStats(id));
     }
 
     public void setGrowth(int growth) {
-        this.growth = growth;
+        final int stats = STORE.getStats(id);
+        STORE.setStats(id, ChickenStore.packStats(growth, ChickenStore.gain(stats), ChickenStore.strength(stats)));
     }
 
     public int getGain() {
-        return gain;
+        return ChickenStore.gain(STORE.getStats(id));
     }
 
     public void setGain(int gain) {
-        this.gain = gain;
+        final int stats = STORE.getStats(id);
+        STORE.setStats(id, ChickenStore.packStats(ChickenStore.growth(stats), gain, ChickenStore.strength(stats)));
     }
 
     public int getStrength() {
-        return strength;
+        return ChickenStore.strength(STORE.getStats(id));
     }
 
     public void setStrength(int strength) {
-        this.strength = strength;
+        final int stats = STORE.getStats(id);
+        STORE.setStats(id, ChickenStore.packStats(ChickenStore.growth(stats), ChickenStore.gain(stats), strength));
     }
 
     public Instant getNextLay() {
-        return nextLay;
+        return Instant.ofEpochMilli(STORE.getNextLay(id));
     }
 
     public void setNextLay(Instant nextLay) {
-        this.nextLay = nextLay;
+        STORE.setNextLay(id, nextLay.toEpochMilli());
+    }
+
+    /**
+     * Get the next lay time of this chicken without allocating an {@link Instant}.
+     *
+     * @return The next lay time in epoch milliseconds.
+     */
+    public long getNextLayMillis() {
+        return STORE.getNextLay(id);
+    }
+
+    public void setNextLayMillis(long nextLay) {
+        STORE.setNextLay(id, nextLay);
+    }
+
+    /**
+     * Free the slot backing this chicken in the {@link ChickenStore}. The chicken must not be used afterwards.
+     */
+    public void release() {
+        STORE.free(id);
+    }
+
+    /**
+     * Get the time between two lays of this chicken. Every point of growth above one shaves a tenth off the base
+     * interval of its type, so a chicken with a growth of ten lays ten times as fast as a fresh one.
+     *
+     * @return The lay interval of this chicken.
+     */
+    public Duration getLayInterval() {
+        return Duration.ofMillis(getLayIntervalMillis());
+    }
+
+    /**
+     * Get the time between two lays of this chicken without allocating a {@link Duration}. See {@link LayTables}.
+     *
+     * @return The lay interval in milliseconds.
+     */
+    public long getLayIntervalMillis() {
+        return LayTables.intervalMillis(STORE.getType(id), STORE.getStats(id));
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * Get the number of items this chicken produces per lay, gaining an extra item over the base amount of its type at a
+     * gain of five and ten.
+     *
+     * @return The number of items per lay.
+     */
+    public int getLayAmount() {
+        return LayTables.layAmount(STORE.getType(id), STORE.getStats(id));
+    }
+
+    /**
+     * Render this chicken as an item. See {@link ChickenItems#render(Chicken)}.
+     *
+     * @return A new {@link ItemStack} representing this chicken.
+     */
     public ItemStack toItemStack() {
-        return new ItemBuilder(Material.PAPER)
-                .customModelData(chickenType + "_chicken")
-                .displayName(Component.text(WordUtils.capitalizeFully(chickenType) + " Chicken", NamedTextColor.YELLOW))
-                .addLore(
-                        Component.text(" "),
-                        Component.text("Growth: ", NamedTextColor.WHITE).append(Component.text(growth, NamedTextColor.GRAY)),
-                        Component.text("Gain: ", NamedTextColor.WHITE).append(Component.text(gain, NamedTextColor.GRAY)),
-                        Component.text("Strength: ", NamedTextColor.WHITE).append(Component.text(strength, NamedTextColor.GRAY))
-                )
-                .build();
+        return ChickenItems.render(this);
+    }
+
+    /**
+     * Read the chicken stored on an item created by {@link #toItemStack()}. The returned chicken owns a new slot in the
+     * {@link ChickenStore} and should be {@link #release() released} once it is no longer needed.
+     *
+     * @param itemStack The item to read from.
+     * @return The {@link Chicken} stored on the item, or {@code null} if the item is not a chicken.
+     */
+    public static @Nullable Chicken fromItemStack(@Nullable ItemStack itemStack) {
+        if (itemStack == null || itemStack.isEmpty()) return null;
+
+        return itemStack.getPersistentDataContainer().get(ChickenDataType.KEY, ChickenDataType.INSTANCE);
     }
 
     public ItemStack getItemToLay() {
-        return new ItemStack(Objects.requireNonNull(Material.matchMaterial(chickenType)));
+        return new ItemStack(getType().material());
+    }
+
+    // The id includes the generation of the slot, so a released chicken never equals the one that reused its slot
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Chicken chicken && chicken.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.persistence.PersistentDataAdapterContext;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.time.Instant;
+
+/**
+ * {@link PersistentDataType} that stores a {@link Chicken} as a compact byte array, so its stats and next lay time
+ * survive on the entities and items that carry it.
+ */
+public final class ChickenDataType implements PersistentDataType<byte[], Chicken> {
+
+    public static final ChickenDataType INSTANCE = new ChickenDataType();
+
+    /**
+     * The key chicken data is stored under on entities and items.
+     */
+    public static final NamespacedKey KEY = new NamespacedKey("materialchicks", "chicken");
+
+    private static final byte VERSION = 1;
+
+    private ChickenDataType() { }
+
+    @Override
+    public @NotNull Class<byte[]> getPrimitiveType() {
+        return byte[].class;
+    }
+
+    @Override
+    public @NotNull Class<Chicken> getComplexType() {
+        return Chicken.class;
+    }
+
+    @Override
+    public byte @NotNull [] toPrimitive(@NotNull Chicken chicken, @NotNull PersistentDataAdapterContext context) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(chicken.getChickenType());
+            out.writeByte(chicken.getGrowth());
+            out.writeByte(chicken.getGain());
+            out.writeByte(chicken.getStrength());
+            out.writeLong(chicken.getNextLay().toEpochMilli());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public @NotNull Chicken fromPrimitive(byte @NotNull [] primitive, @NotNull PersistentDataAdapterContext context) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(primitive))) {
+            final byte version = in.readByte();
+            if (version != VERSION) throw new IllegalArgumentException("Unknown chicken data version " + version);
+
+            return new Chicken(ChickenTypes.byNameOrThrow(in.readUTF()), in.readByte(), in.readByte(), in.readByte(), Instant.ofEpochMilli(in.readLong()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.berttowne.materialchicks.chickens;
+
+import com.berttowne.materialchicks.util.item.ItemBuilder;
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.ItemLore;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Renders chickens as items from cached templates.
+ * <p>
+ * Every {@link ChickenType} gets a prebuilt base item carrying its model and display name, and the stat lore is cached
+ * per growth, gain and strength combination. Rendering a chicken is then a clone of the template, a single lore
+ * component write and the chicken data itself, instead of a full {@link ItemBuilder} pass.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public final class ChickenItems {
+
+    private static final int LORE_CACHE_BITS = 10;
+
+    private static final CachedLore[] LORE_CACHE = new CachedLore[1 << LORE_CACHE_BITS];
+
+    private static volatile ItemStack[] templates = new ItemStack[0];
+
+    private ChickenItems() { }
+
+    /**
+     * Build the base item of every loaded {@link ChickenType}. Must be called again whenever the types are reloaded.
+     */
+    public static void load() {
+        final ItemStack[] built = new ItemStack[ChickenTypes.size()];
+
+        for (final ChickenType type : ChickenTypes.all()) {
+            built[type.id()] = new ItemBuilder(Material.PAPER)
+                    .customModelData(type.modelKey())
+                    .displayName(type.displayName())
+                    .build();
+        }
+
+        templates = built;
+    }
+
+    /**
+     * Render a chicken as an item that can be turned back into a chicken with {@link Chicken#fromItemStack(ItemStack)}.
+     *
+     * @param chicken The chicken to render.
+     * @return A new {@link ItemStack} representing the chicken.
+     */
+    public static @NotNull ItemStack render(final @NotNull Chicken chicken) {
+        final ItemStack itemStack = templates[chicken.getType().id()].clone();
+
+        itemStack.setData(DataComponentTypes.LORE, ChickenItems.lore(chicken.getStats()));
+        itemStack.editPersistentDataContainer(container -> container.set(ChickenDataType.KEY, ChickenDataType.INSTANCE, chicken));
+
+        return itemStack;
+    }
+
+    private static @NotNull ItemLore lore(final int stats) {
+        // Direct-mapped, so the cache stays bounded and a collision only costs a rebuild
+        final int slot = (stats * 0x9E3779B9) >>> (Integer.SIZE - LORE_CACHE_BITS);
+        final CachedLore cached = LORE_CACHE[slot];
+        if (cached != null && cached.stats() == stats) return cached.lore();
+
+        final ItemLore lore = ItemLore.lore()
+                .addLine(Component.text(" "))
+                .addLine(Component.text("Growth: ", NamedTextColor.WHITE).append(Component.text(ChickenStore.growth(stats), NamedTextColor.GRAY)))
+                .addLine(Component.text("Gain: ", NamedTextColor.WHITE).append(Component.text(ChickenStore.gain(stats), NamedTextColor.GRAY)))
+                .addLine(Component.text("Strength: ", NamedTextColor.WHITE).append(Component.text(ChickenStore.strength(stats), NamedTextColor.GRAY)))
+                .build();
+
+        LORE_CACHE[slot] = new CachedLore(stats, lore);
+        return lore;
+    }
+
+    private record CachedLore(int stats, ItemLore lore) { }
+
+}
\ No newline at end of file
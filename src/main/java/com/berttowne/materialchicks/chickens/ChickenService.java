@@ -1,12 +1,422 @@
 package com.berttowne.materialchicks.chickens;
 
+import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.breeding.BreedingEngine;
+import com.berttowne.materialchicks.breeding.BreedingRecipes;
+import com.berttowne.materialchicks.util.Scheduler;
+import com.berttowne.materialchicks.util.TaskProfiler;
+import com.berttowne.materialchicks.util.WorkQueue;
 import com.berttowne.materialchicks.util.injection.Service;
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Mob;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.event.entity.EntityBreedEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-public class ChickenService implements Service {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+@Singleton
+@AutoService({Service.class, Listener.class})
+public class ChickenService implements Service, Listener {
+
+    private static final TaskProfiler.Site DELIVER_SITE = TaskProfiler.site("ChickenService#onEntitiesLoad");
+    private static final TaskProfiler.Site HATCH_SITE = TaskProfiler.site("ChickenService#hatch");
+
+    private final MaterialChicks plugin;
+    private final LayThrottle layThrottle = new LayThrottle();
+    private final WorkQueue workQueue = new WorkQueue();
+    private final LayEngine layEngine = new LayEngine(layThrottle, workQueue);
+    private final BreedingEngine breedingEngine = new BreedingEngine();
+    private final AiThrottle aiThrottle = new AiThrottle();
+    private final Map<UUID, LayEngine.Entry> entityEntries = Maps.newConcurrentMap();
+
+    // Volatile as a reload replaces them while region threads read them
+    private volatile int maxCatchUpLays;
+    private volatile boolean stacking;
+    private volatile double stackRadius;
+    private volatile int maxStackSize;
+    private volatile boolean throttleAi;
+
+    @Inject
+    public ChickenService(MaterialChicks plugin) {
+        this.plugin = plugin;
+    }
 
     @Override
     public void onLoad() {
+        this.configure();
+    }
+
+    @Override
+    public void onEnable() {
+        layEngine.start();
+
+        if (throttleAi) this.startAiThrottle();
+    }
+
+    /**
+     * Reload the {@code chickens} and {@code breeding} settings from the config. The chicken types, their items, lay
+     * tables and breeding recipes are rebuilt together, so they never disagree. Chickens in the world keep their
+     * next lay time and lay at the reloaded rates from then on.
+     * <p>
+     * When the AI throttle is turned on by a reload, chickens that are already loaded are only throttled once they
+     * are loaded again.
+     */
+    public void reload() {
+        plugin.reloadConfig();
+        this.configure();
+
+        if (throttleAi) this.startAiThrottle();
+        else aiThrottle.stop();
+    }
+
+    private void configure() {
+        ChickenTypes.load(plugin.getConfig().getConfigurationSection("chickens"), plugin.getLogger());
+        LayTables.load(plugin.getConfig().getConfigurationSection("chickens"), plugin.getLogger());
+        ChickenItems.load();
+        BreedingRecipes.load(plugin.getConfig().getConfigurationSection("breeding"), plugin.getLogger());
+
+        workQueue.setBudget((long) (plugin.getConfig().getDouble("chickens.work-budget-millis", 2.0) * 1_000_000L));
+        this.maxCatchUpLays = Math.max(1, plugin.getConfig().getInt("chickens.max-catch-up-lays", 64));
+        layEngine.setMaxLays(maxCatchUpLays);
+        LayOutput.configure(plugin.getConfig().getDouble("chickens.output.merge-radius", 2.0),
+                plugin.getConfig().getInt("chickens.output.max-ground-items-per-chunk", 64));
+        layThrottle.configure(plugin.getConfig().getDouble("chickens.throttle.max-tick-millis", 45.0),
+                plugin.getConfig().getLong("chickens.throttle.max-defer-seconds", 60L) * 1000L,
+                plugin.getConfig().getDouble("chickens.throttle.max-items-per-second", 0.0));
+        this.stacking = plugin.getConfig().getBoolean("chickens.stacking.enabled", true);
+        this.stackRadius = plugin.getConfig().getDouble("chickens.stacking.radius", 5.0);
+        this.maxStackSize = Math.max(1, plugin.getConfig().getInt("chickens.stacking.max-size", 64));
+
+        this.throttleAi = plugin.getConfig().getString("chickens.ai.mode", "freeze").equalsIgnoreCase("freeze");
+
+        breedingEngine.setMutation(plugin.getConfig().getDouble("breeding.mutation-chance", 0.25),
+                plugin.getConfig().getInt("breeding.max-mutation", 1));
+    }
+
+    private void startAiThrottle() {
+        aiThrottle.start(plugin.getConfig().getDouble("chickens.ai.radius", 32.0), plugin.getConfig().getLong("chickens.ai.check-interval", 40L),
+                plugin.getConfig().getInt("chickens.ai.thaw-batch-size", 16));
+    }
+
+    @Override
+    public void onDisable() {
+        layEngine.stop();
+        workQueue.close();
+        layThrottle.stop();
+        aiThrottle.stop();
+        // Lays already handed to an entity's region must see the entry cancelled before its chicken is freed
+        entityEntries.values().forEach(entry -> {
+            entry.cancel();
+            entry.getChicken().release();
+        });
+        entityEntries.clear();
+    }
+
+    @EventHandler
+    public void onEntitiesLoad(@NotNull EntitiesLoadEvent event) {
+        final List<Entity> entities = new ArrayList<>();
+        final List<Chicken> chickens = new ArrayList<>();
+
+        for (final Entity entity : event.getEntities()) {
+            final Chicken chicken = this.getChicken(entity);
+            if (chicken == null) continue;
+
+            entities.add(entity);
+            chickens.add(chicken);
+        }
+
+        // Credit everything that came due while the chunk was unloaded or the server was down, for the whole chunk at once
+        final LayKernel.Batch batch = LayKernel.batch();
+        chickens.forEach(batch::add);
+        batch.advance(System.currentTimeMillis(), maxCatchUpLays);
+
+        for (int i = 0; i < batch.size(); i++) {
+            final Entity entity = entities.get(i);
+            final Chicken chicken = chickens.get(i);
+            final EntityLayTarget target = new EntityLayTarget(entity);
+
+            // The output is worked out now, as the chicken may be merged into a stack and released before the job runs
+            if (batch.getLays(i) > 0) {
+                chicken.setNextLayMillis(batch.getNextLay(i));
+
+                final Location location = entity.getLocation();
+                final ItemStack item = chicken.getItemToLay();
+                final int amount = batch.getItems(i) * ChickenStacks.getSize(entity);
+
+                workQueue.submit(location, DELIVER_SITE, () -> LayOutput.deliver(location, item, amount));
+            }
+
+            if (this.mergeIntoNearbyStack(entity, chicken)) {
+                entity.remove();
+                chicken.release();
+                continue;
+            }
+
+            this.track(entity, chicken, target);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onCreatureSpawn(@NotNull CreatureSpawnEvent event) {
+        // Splits of a stack are spawned by this plugin and must not merge straight back into it
+        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.CUSTOM) return;
+
+        final Entity entity = event.getEntity();
+        if (!(entity instanceof org.bukkit.entity.Chicken)) return;
+
+        final Chicken chicken = this.getChicken(entity);
+        if (chicken == null) return;
+
+        final boolean merged = this.mergeIntoNearbyStack(entity, chicken);
+        chicken.release();
+
+        // Not in the world yet, so a merged chicken can simply never be added to it
+        if (merged) {
+            event.setCancelled(true);
+            return;
+        }
+
+        Scheduler.run(entity, () -> {
+            if (!entity.isValid() || entityEntries.containsKey(entity.getUniqueId())) return;
+
+            final Chicken added = this.getChicken(entity);
+            if (added != null) this.track(entity, added, new EntityLayTarget(entity));
+        });
+    }
+
+    @EventHandler
+    public void onEntitiesUnload(@NotNull EntitiesUnloadEvent event) {
+        for (final Entity entity : event.getEntities()) {
+            final LayEngine.Entry entry = entityEntries.remove(entity.getUniqueId());
+            if (entry == null) continue;
+
+            // Thawed before the entity is saved, so it never stays frozen while nothing is throttling it
+            if (entity instanceof Mob mob) aiThrottle.untrack(mob);
+
+            entry.cancel();
+            this.setChicken(entity, entry.getChicken());
+            entry.getChicken().release();
+        }
+    }
+
+    @EventHandler
+    public void onEntityDeath(@NotNull EntityDeathEvent event) {
+        // Only one chicken of a stack dies, the rest carry on as a new entity
+        this.splitStack(event.getEntity());
+
+        final LayEngine.Entry entry = entityEntries.remove(event.getEntity().getUniqueId());
+        if (entry == null) return;
+
+        if (event.getEntity() instanceof Mob mob) aiThrottle.untrack(mob);
+        entry.cancel();
+        entry.getChicken().release();
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onEntityBreed(@NotNull EntityBreedEvent event) {
+        // The parents breed as single chickens, so the rest of their stacks must not share the breeding cooldown
+        this.splitStack(event.getMother());
+        this.splitStack(event.getFather());
+
+        final LayEngine.Entry mother = entityEntries.get(event.getMother().getUniqueId());
+        final LayEngine.Entry father = entityEntries.get(event.getFather().getUniqueId());
+        if (mother == null || father == null || !(event.getEntity() instanceof org.bukkit.entity.Chicken child)) return;
+
+        // Read now, the parents may be unloaded and released by the time the child is hatched
+        final int firstType = mother.getChicken().getType().id(), firstStats = mother.getChicken().getStats();
+        final int secondType = father.getChicken().getType().id(), secondStats = father.getChicken().getStats();
+
+        workQueue.submit(child.getLocation(), HATCH_SITE, () -> this.hatch(child, firstType, firstStats, secondType, secondStats));
+    }
+
+    /**
+     * Start laying a chicken into the given target. The chicken first lays at its {@link Chicken#getNextLay() next lay}
+     * and then once every {@link Chicken#getLayInterval() lay interval} until the returned entry is cancelled.
+     *
+     * @param chicken The chicken to start laying.
+     * @param target The {@link LayTarget} that receives the lays.
+     * @return The {@link LayEngine.Entry} that can be used to stop the chicken from laying.
+     */
+    public @NotNull LayEngine.Entry schedule(final @NotNull Chicken chicken, final @NotNull LayTarget target) {
+        return layEngine.schedule(chicken, target);
+    }
+
+    /**
+     * Work out how many lays a chicken missed while it was not being ticked, and move its next lay past the given time.
+     * This is constant time no matter how long the chicken sat idle, and is capped by {@code chickens.max-catch-up-lays}.
+     *
+     * @param chicken The chicken to catch up.
+     * @param now The current time in epoch milliseconds.
+     * @return The number of lays the chicken should be credited with.
+     */
+    public int catchUp(final @NotNull Chicken chicken, final long now) {
+        return LayEngine.advance(chicken, now, maxCatchUpLays);
+    }
+
+    /**
+     * Get the chicken data stored on an entity. The returned chicken owns a slot in the {@link ChickenStore} and
+     * should be {@link Chicken#release() released} once it is no longer needed.
+     *
+     * @param entity The entity to read from.
+     * @return The {@link Chicken} stored on the entity, or {@code null} if the entity is not a MaterialChicks chicken.
+     */
+    public @Nullable Chicken getChicken(final @NotNull Entity entity) {
+        final PersistentDataContainer container = entity.getPersistentDataContainer();
+        if (!container.has(ChickenDataType.KEY, ChickenDataType.INSTANCE)) return null;
+
+        return container.get(ChickenDataType.KEY, ChickenDataType.INSTANCE);
+    }
+
+    /**
+     * Store chicken data on an entity so that it is saved along with it.
+     *
+     * @param entity The entity to write to.
+     * @param chicken The {@link Chicken} to store.
+     */
+    public void setChicken(final @NotNull Entity entity, final @NotNull Chicken chicken) {
+        entity.getPersistentDataContainer().set(ChickenDataType.KEY, ChickenDataType.INSTANCE, chicken);
+    }
+
+    private void track(final @NotNull Entity entity, final @NotNull Chicken chicken, final @NotNull EntityLayTarget target) {
+        final LayEngine.Entry previous = entityEntries.put(entity.getUniqueId(), this.schedule(chicken, target));
+        if (previous != null) {
+            previous.cancel();
+            previous.getChicken().release();
+        }
+
+        if (throttleAi && entity instanceof Mob mob) aiThrottle.track(mob);
+    }
+
+    /**
+     * Merge a chicken entity into a nearby stack of identical chickens, i.e. of the same type with the same stats. Only
+     * grown chickens that are neither in love nor on a breeding cooldown are merged.
+     *
+     * @param entity The entity to merge.
+     * @param chicken The chicken carried by the entity.
+     * @return Whether the entity was merged into another stack and should be removed.
+     */
+    private boolean mergeIntoNearbyStack(final @NotNull Entity entity, final @NotNull Chicken chicken) {
+        if (!stacking || !ChickenService.isStackable(entity)) return false;
+
+        final int size = ChickenStacks.getSize(entity);
+
+        for (final Entity other : entity.getNearbyEntities(stackRadius, stackRadius, stackRadius)) {
+            if (!ChickenService.isStackable(other)) continue;
+
+            final LayEngine.Entry entry = entityEntries.get(other.getUniqueId());
+            if (entry == null || entry.getChicken().getType() != chicken.getType() || entry.getChicken().getStats() != chicken.getStats()) continue;
+
+            final int merged = ChickenStacks.getSize(other) + size;
+            if (merged > maxStackSize) continue;
+
+            ChickenStacks.setSize(other, merged);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Split every chicken but one off a stacked entity into a new entity next to it.
+     *
+     * @param entity The stacked entity.
+     */
+    private void splitStack(final @NotNull Entity entity) {
+        final int size = ChickenStacks.getSize(entity);
+        if (size <= 1 || !(entity instanceof org.bukkit.entity.Chicken source)) return;
+
+        final LayEngine.Entry entry = entityEntries.get(entity.getUniqueId());
+        if (entry == null) return;
+
+        final Chicken chicken = entry.getChicken();
+        final Chicken rest = Chicken.fromPacked(chicken.getType(), chicken.getStats(), chicken.getNextLayMillis());
+
+        ChickenStacks.setSize(entity, 1);
+        final org.bukkit.entity.Chicken spawned = entity.getWorld().spawn(entity.getLocation(), org.bukkit.entity.Chicken.class, split -> {
+            split.setVariant(source.getVariant());
+            ChickenStacks.setSize(split, size - 1);
+            this.setChicken(split, rest);
+        });
+
+        this.track(spawned, rest, new EntityLayTarget(spawned));
+    }
+
+    /**
+     * Roll the type and stats of a freshly bred child entity and start laying it.
+     *
+     * @param child The child entity.
+     * @param firstType The type id of one of the parents.
+     * @param firstStats The packed stats of that parent.
+     * @param secondType The type id of the other parent.
+     * @param secondStats The packed stats of the other parent.
+     */
+    private void hatch(final org.bukkit.entity.Chicken child, final int firstType, final int firstStats,
+                       final int secondType, final int secondStats) {
+        // The child may have wandered into another region since the job was queued
+        if (!Bukkit.isOwnedByCurrentRegion(child)) {
+            Scheduler.run(child, () -> this.hatch(child, firstType, firstStats, secondType, secondStats));
+            return;
+        }
+
+        if (!child.isValid() || entityEntries.containsKey(child.getUniqueId())) return;
+
+        final RandomGenerator random = ThreadLocalRandom.current();
+        final ChickenType type = ChickenTypes.byId(breedingEngine.childType(firstType, secondType, random));
+        final Chicken chicken = Chicken.fromPacked(type, breedingEngine.inheritStats(firstStats, secondStats, random), 0L);
+        chicken.setNextLayMillis(System.currentTimeMillis() + chicken.getLayIntervalMillis());
+
+        child.setVariant(type.variant());
+        this.setChicken(child, chicken);
+        this.track(child, chicken, new EntityLayTarget(child));
+    }
+
+    private static boolean isStackable(final @NotNull Entity entity) {
+        return entity instanceof org.bukkit.entity.Chicken chicken && chicken.isAdult() && chicken.getAge() == 0 && !chicken.isLoveMode();
+    }
+
+    public AiThrottle getAiThrottle() {
+        return aiThrottle;
+    }
+
+    public int getMaxCatchUpLays() {
+        return maxCatchUpLays;
+    }
+
+    public WorkQueue getWorkQueue() {
+        return workQueue;
+    }
+
+    public LayThrottle getLayThrottle() {
+        return layThrottle;
+    }
+
+    public LayEngine getLayEngine() {
+        return layEngine;
+    }
 
+    public BreedingEngine getBreedingEngine() {
+        return breedingEngine;
     }
 
 }
\ No newline at end of file
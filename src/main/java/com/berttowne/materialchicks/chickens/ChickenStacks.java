@@ -0,0 +1,51 @@
+package com.berttowne.materialchicks.chickens;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads and writes the number of chickens a single stacked chicken entity stands for.
+ * <p>
+ * Identical chickens roaming close together are merged into one entity carrying a stack size, which multiplies its lay
+ * output. An entity without a stack size is a single chicken.
+ */
+public final class ChickenStacks {
+
+    public static final NamespacedKey KEY = new NamespacedKey("materialchicks", "stack");
+
+    private ChickenStacks() { }
+
+    /**
+     * Get the number of chickens an entity stands for.
+     *
+     * @param entity The chicken entity.
+     * @return The stack size of the entity, at least one.
+     */
+    public static int getSize(final @NotNull Entity entity) {
+        return Math.max(1, entity.getPersistentDataContainer().getOrDefault(KEY, PersistentDataType.INTEGER, 1));
+    }
+
+    /**
+     * Set the number of chickens an entity stands for, and show it above the entity when it is more than one.
+     *
+     * @param entity The chicken entity.
+     * @param size The new stack size.
+     */
+    public static void setSize(final @NotNull Entity entity, final int size) {
+        if (size <= 1) {
+            entity.getPersistentDataContainer().remove(KEY);
+            entity.customName(null);
+            entity.setCustomNameVisible(false);
+            return;
+        }
+
+        entity.getPersistentDataContainer().set(KEY, PersistentDataType.INTEGER, size);
+        entity.customName(Component.text("x" + size, NamedTextColor.YELLOW));
+        entity.setCustomNameVisible(true);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.berttowne.materialchicks.chickens;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage behind every {@link Chicken}.
+ * <p>
+ * A chicken is nothing more than a slot id into this store: its type is kept as its {@link ChickenType} id, its growth, gain and
+ * strength are packed into a single int and its next lay is kept as epoch milliseconds. Slots live in fixed-size pages
+ * so that growing the store never copies or moves existing slots, which keeps writes from region threads safe while
+ * the store grows. Only allocating and freeing slots takes a lock.
+ * <p>
+ * Slots are reused, so every id also carries the generation of its slot in its upper 32 bits. The generation is bumped
+ * whenever the slot is freed, which makes reading, writing or freeing through a stale or already released id fail
+ * loudly instead of touching whichever chicken reused the slot.
+ */
+public final class ChickenStore {
+
+    public static final ChickenStore INSTANCE = new ChickenStore();
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int GENERATION_SHIFT = Integer.SIZE;
+
+    private static final int STAT_BITS = 8;
+    private static final int STAT_MASK = (1 << STAT_BITS) - 1;
+
+    private final Object lock = new Object();
+
+    private volatile Page[] pages = new Page[0];
+
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int nextSlot;
+    private int size;
+
+    private ChickenStore() { }
+
+    /**
+     * Allocate a slot for a new chicken.
+     *
+     * @param type The id of the {@link ChickenType}.
+     * @param stats The growth, gain and strength packed with {@link #packStats(int, int, int)}.
+     * @param nextLay The next lay time in epoch milliseconds.
+     * @return The id of the new slot, including its generation.
+     */
+    public long allocate(final int type, final int stats, final long nextLay) {
+        final int slot;
+        final int generation;
+
+        synchronized (lock) {
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                slot = nextSlot++;
+
+                if ((slot >>> PAGE_SHIFT) >= pages.length) {
+                    final Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+                    grown[pages.length] = new Page();
+                    this.pages = grown;
+                }
+            }
+
+            generation = this.page(slot).generations[slot & PAGE_MASK];
+            size++;
+        }
+
+        final Page page = this.page(slot);
+        final int index = slot & PAGE_MASK;
+        page.types[index] = type;
+        page.stats[index] = stats;
+        page.nextLays[index] = nextLay;
+        return (long) generation << GENERATION_SHIFT | slot;
+    }
+
+    /**
+     * Free a slot so that it can be reused by another chicken. Any {@link Chicken} still pointing at the slot must not
+     * be used afterwards.
+     *
+     * @param id The id of the slot to free, as returned by {@link #allocate(int, int, long)}.
+     * @throws IllegalStateException If the slot was already freed since the id was handed out.
+     */
+    public void free(final long id) {
+        final int slot = ChickenStore.slot(id);
+
+        synchronized (lock) {
+            if (slot < 0 || slot >= nextSlot) throw new IllegalStateException("Chicken slot " + slot + " was never allocated");
+
+            final Page page = this.page(slot);
+            final int index = slot & PAGE_MASK;
+            if (page.generations[index] != ChickenStore.generation(id)) {
+                throw new IllegalStateException("Chicken slot " + slot + " was already freed, this is a stale or double free");
+            }
+
+            page.generations[index]++;
+
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+
+            freeSlots[freeCount++] = slot;
+            size--;
+        }
+    }
+
+    /**
+     * Get the number of chickens currently held in the store.
+     *
+     * @return The number of allocated slots.
+     */
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    public int getType(final long id) {
+        return this.live(id).types[ChickenStore.slot(id) & PAGE_MASK];
+    }
+
+    public int getStats(final long id) {
+        return this.live(id).stats[ChickenStore.slot(id) & PAGE_MASK];
+    }
+
+    public void setStats(final long id, final int stats) {
+        this.live(id).stats[ChickenStore.slot(id) & PAGE_MASK] = stats;
+    }
+
+    public long getNextLay(final long id) {
+        return this.live(id).nextLays[ChickenStore.slot(id) & PAGE_MASK];
+    }
+
+    public void setNextLay(final long id, final long nextLay) {
+        this.live(id).nextLays[ChickenStore.slot(id) & PAGE_MASK] = nextLay;
+    }
+
+    private Page page(final int slot) {
+        return pages[slot >>> PAGE_SHIFT];
+    }
+
+    // The page of a slot, as long as the id still points at the chicken it was handed out for
+    private Page live(final long id) {
+        final int slot = ChickenStore.slot(id);
+        final Page page = this.page(slot);
+
+        if (page.generations[slot & PAGE_MASK] != ChickenStore.generation(id)) {
+            throw new IllegalStateException("Chicken slot " + slot + " was freed, this is a stale chicken");
+        }
+
+        return page;
+    }
+
+    private static int slot(final long id) {
+        return (int) id;
+    }
+
+    private static int generation(final long id) {
+        return (int) (id >>> GENERATION_SHIFT);
+    }
+
+    /**
+     * Pack growth, gain and strength into a single int.
+     *
+     * @param growth The growth stat.
+     * @param gain The gain stat.
+     * @param strength The strength stat.
+     * @return The packed stats.
+     */
+    public static int packStats(final int growth, final int gain, final int strength) {
+        return (growth & STAT_MASK) << (STAT_BITS * 2) | (gain & STAT_MASK) << STAT_BITS | (strength & STAT_MASK);
+    }
+
+    public static int growth(final int stats) {
+        return (stats >>> (STAT_BITS * 2)) & STAT_MASK;
+    }
+
+    public static int gain(final int stats) {
+        return (stats >>> STAT_BITS) & STAT_MASK;
+    }
+
+    public static int strength(final int stats) {
+        return stats & STAT_MASK;
+    }
+
+    private static final class Page {
+
+        private final int[] types = new int[PAGE_SIZE];
+        private final int[] stats = new int[PAGE_SIZE];
+        private final long[] nextLays = new long[PAGE_SIZE];
+        private final int[] generations = new int[PAGE_SIZE];
+
+    }
+
+}
\ No newline at end of file
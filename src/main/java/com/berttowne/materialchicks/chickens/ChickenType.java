@@ -0,0 +1,23 @@
+package com.berttowne.materialchicks.chickens;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A chicken type resolved once from the chicken variant registry, holding everything the lay and render paths need so
+ * they never have to parse strings or touch the registry again.
+ *
+ * @param id The small int id of this type, also its index in {@link ChickenTypes#all()}.
+ * @param name The name of this type, e.g. {@code diamond}.
+ * @param key The key of the registered chicken variant, e.g. {@code materialchicks:diamond_chicken}.
+ * @param variant The registered chicken variant.
+ * @param material The material laid by chickens of this type.
+ * @param displayName The display name of chickens of this type.
+ * @param modelKey The custom model data string used to render this type, e.g. {@code diamond_chicken}.
+ */
+public record ChickenType(int id, @NotNull String name, @NotNull Key key, org.bukkit.entity.Chicken.Variant variant,
+                          @NotNull Material material, @NotNull Component displayName, @NotNull String modelKey) {
+
+}
\ No newline at end of file
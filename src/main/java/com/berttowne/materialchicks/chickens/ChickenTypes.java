@@ -0,0 +1,125 @@
+package com.berttowne.materialchicks.chickens;
+
+import io.papermc.paper.registry.RegistryAccess;
+import io.papermc.paper.registry.RegistryKey;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.apache.commons.lang3.text.WordUtils;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Registry of every {@link ChickenType}, built once from the frozen chicken variant registry when the plugin enables.
+ * Lookups by id are an array index and lookups by name a single hash lookup.
+ */
+public final class ChickenTypes {
+
+    private static final String NAMESPACE = "materialchicks";
+    private static final String SUFFIX = "_chicken";
+
+    private static volatile ChickenType[] types = new ChickenType[0];
+    private static volatile Map<String, ChickenType> typesByName = Map.of();
+
+    private ChickenTypes() { }
+
+    /**
+     * Resolve every MaterialChicks chicken variant into a {@link ChickenType}. Laid materials are read from
+     * {@code chickens.types.<type>.material} in the given config section, falling back to the material matching the
+     * type name.
+     *
+     * @param config The {@code chickens} config section, if any.
+     * @param logger The logger to report unresolvable types to.
+     */
+    @SuppressWarnings("deprecation")
+    public static void load(final @Nullable ConfigurationSection config, final @NotNull Logger logger) {
+        final List<ChickenType> loaded = new ArrayList<>();
+        final Map<String, ChickenType> byName = new HashMap<>();
+
+        for (final org.bukkit.entity.Chicken.Variant variant : RegistryAccess.registryAccess().getRegistry(RegistryKey.CHICKEN_VARIANT)) {
+            final String value = variant.getKey().value();
+            if (!variant.getKey().namespace().equals(NAMESPACE) || !value.endsWith(SUFFIX)) continue;
+
+            final String name = value.substring(0, value.length() - SUFFIX.length());
+            final Material material = ChickenTypes.resolveMaterial(name, config);
+            if (material == null) {
+                logger.warning("Unable to resolve the material laid by " + name + " chickens, they will lay eggs instead");
+            }
+
+            final ChickenType type = new ChickenType(loaded.size(), name, variant.getKey(), variant,
+                    material == null ? Material.EGG : material,
+                    Component.text(WordUtils.capitalizeFully(name.replace('_', ' ')) + " Chicken", NamedTextColor.YELLOW),
+                    value);
+
+            loaded.add(type);
+            byName.put(name, type);
+        }
+
+        typesByName = Map.copyOf(byName);
+        types = loaded.toArray(ChickenType[]::new);
+    }
+
+    /**
+     * Get a chicken type by its id.
+     *
+     * @param id The id of the chicken type.
+     * @return The {@link ChickenType} with the given id.
+     */
+    public static @NotNull ChickenType byId(final int id) {
+        return types[id];
+    }
+
+    /**
+     * Get a chicken type by its name.
+     *
+     * @param name The name of the chicken type, e.g. {@code diamond}.
+     * @return The {@link ChickenType} with the given name, or {@code null} if there is none.
+     */
+    public static @Nullable ChickenType byName(final @NotNull String name) {
+        return typesByName.get(name);
+    }
+
+    /**
+     * Get a chicken type by its name, failing if it does not exist.
+     *
+     * @param name The name of the chicken type, e.g. {@code diamond}.
+     * @return The {@link ChickenType} with the given name.
+     * @throws IllegalArgumentException If there is no chicken type with the given name.
+     */
+    public static @NotNull ChickenType byNameOrThrow(final @NotNull String name) {
+        final ChickenType type = typesByName.get(name);
+        if (type == null) throw new IllegalArgumentException("Unknown chicken type: " + name);
+
+        return type;
+    }
+
+    /**
+     * Get every chicken type, indexed by id.
+     *
+     * @return An unmodifiable list of all chicken types.
+     */
+    public static @NotNull List<ChickenType> all() {
+        return List.of(types);
+    }
+
+    public static int size() {
+        return types.length;
+    }
+
+    private static @Nullable Material resolveMaterial(final @NotNull String name, final @Nullable ConfigurationSection config) {
+        final String configured = config == null ? null : config.getString("types." + name + ".material");
+        if (configured != null) return Material.matchMaterial(configured);
+
+        for (final String candidate : new String[] { name, name + "_ingot" }) {
+            final Material material = Material.matchMaterial(candidate);
+            if (material != null && material.isItem()) return material;
+        }
+
+        return null;
+    }
+
+}
\ No newline at end of file
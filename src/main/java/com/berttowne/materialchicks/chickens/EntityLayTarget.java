@@ -0,0 +1,55 @@
+package com.berttowne.materialchicks.chickens;
+
+import com.berttowne.materialchicks.util.Scheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link LayTarget} that drops the output of a chicken at the feet of the live entity carrying it, multiplied by the
+ * {@link ChickenStacks stack size} of the entity.
+ */
+public class EntityLayTarget implements LayTarget {
+
+    private final Entity entity;
+
+    private volatile Location anchor;
+
+    public EntityLayTarget(final @NotNull Entity entity) {
+        this.entity = entity;
+        this.anchor = entity.getLocation();
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    @Override
+    public @NotNull Location getAnchor() {
+        return anchor;
+    }
+
+    @Override
+    public void runOnOwner(final @NotNull Runnable run) {
+        // The entity may have wandered into another region since the anchor was last updated
+        if (!Bukkit.isOwnedByCurrentRegion(entity)) {
+            Scheduler.run(entity, run);
+            return;
+        }
+
+        if (entity.isValid()) this.anchor = entity.getLocation();
+        run.run();
+    }
+
+    @Override
+    public void lay(final @NotNull Chicken chicken, final int lays) {
+        if (!entity.isValid()) return;
+
+        this.anchor = entity.getLocation();
+
+        // A chicken has nowhere to keep output that does not fit on the ground, so it is simply lost
+        LayOutput.deliver(anchor, chicken.getItemToLay(), lays * chicken.getLayAmount() * ChickenStacks.getSize(entity));
+    }
+
+}
\ No newline at end of file
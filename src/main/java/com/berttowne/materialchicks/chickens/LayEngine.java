@@ -0,0 +1,221 @@
+package com.berttowne.materialchicks.chickens;
+
+import com.berttowne.materialchicks.util.Scheduler;
+import com.berttowne.materialchicks.util.TaskProfiler;
+import com.berttowne.materialchicks.util.WorkQueue;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single time-ordered queue of every scheduled {@link Chicken}.
+ * <p>
+ * The queue is a min-heap keyed on each chicken's next lay time and is only ever touched by the engine's own async
+ * tick, so scheduling from any thread just drops an entry into a lock-free inbox. Each tick pops the chickens that are
+ * due and hands them to the {@link WorkQueue} of their region, which lays them under its per-tick time budget. The
+ * per-tick cost is therefore proportional to the lays that are due rather than to the number of chickens alive.
+ */
+public final class LayEngine {
+
+    private static final long TICK_MILLIS = 50L;
+    private static final long DEFER_MILLIS = 1_000L;
+    private static final TaskProfiler.Site LAY_SITE = TaskProfiler.site("LayEngine#tick");
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.due));
+    private final Queue<Entry> inbox = new ConcurrentLinkedQueue<>();
+    private final LayThrottle throttle;
+    private final WorkQueue workQueue;
+
+    private ScheduledTask tickTask;
+    private volatile int maxLays = Integer.MAX_VALUE;
+
+    /**
+     * Create an engine that is not ticking yet.
+     *
+     * @param throttle The {@link LayThrottle} asked before every lay.
+     * @param workQueue The {@link WorkQueue} that runs the lays on their regions.
+     */
+    public LayEngine(final @NotNull LayThrottle throttle, final @NotNull WorkQueue workQueue) {
+        this.throttle = throttle;
+        this.workQueue = workQueue;
+    }
+
+    /**
+     * Start ticking the engine. Does nothing if it is already running.
+     */
+    public synchronized void start() {
+        if (this.tickTask != null) return;
+
+        this.tickTask = Scheduler.repeatAsync(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop ticking the engine and forget every scheduled chicken.
+     */
+    public synchronized void stop() {
+        if (this.tickTask != null) {
+            this.tickTask.cancel();
+            this.tickTask = null;
+        }
+
+        this.inbox.clear();
+        this.queue.clear();
+    }
+
+    /**
+     * Schedule a chicken to lay into the given target once its {@link Chicken#getNextLay() next lay} comes due, and
+     * every lay interval after that until the returned entry is cancelled.
+     *
+     * @param chicken The chicken to schedule.
+     * @param target The target receiving the lays.
+     * @return The {@link Entry} representing the scheduled chicken.
+     */
+    public @NotNull Entry schedule(final @NotNull Chicken chicken, final @NotNull LayTarget target) {
+        final Entry entry = new Entry(chicken, target);
+        this.submit(entry);
+        return entry;
+    }
+
+    /**
+     * Set the maximum number of lays credited to a single chicken in one go when the engine falls behind.
+     *
+     * @param maxLays The maximum number of lays per chicken.
+     */
+    public void setMaxLays(final int maxLays) {
+        this.maxLays = maxLays;
+    }
+
+    /**
+     * Get the number of chickens that are currently waiting in the engine.
+     *
+     * @return The number of queued chickens.
+     */
+    public int size() {
+        return this.queue.size() + this.inbox.size();
+    }
+
+    private void submit(final @NotNull Entry entry) {
+        this.submit(entry, entry.chicken.getNextLayMillis());
+    }
+
+    private void submit(final @NotNull Entry entry, final long due) {
+        entry.due = due;
+        this.inbox.add(entry);
+    }
+
+    // Synchronized with stop(), which may be called while a tick is still running on the async scheduler
+    private synchronized void tick() {
+        Entry pending;
+        while ((pending = this.inbox.poll()) != null) {
+            if (!pending.cancelled) this.queue.add(pending);
+        }
+
+        final long now = System.currentTimeMillis();
+
+        while (!this.queue.isEmpty() && this.queue.peek().due <= now) {
+            final Entry entry = this.queue.poll();
+            if (!entry.cancelled) this.workQueue.submit(entry.target.getAnchor(), LAY_SITE, () -> this.lay(entry));
+        }
+    }
+
+    private void lay(final @NotNull Entry entry) {
+        if (entry.cancelled) return;
+
+        // The target may have moved to another region since the job was routed by its anchor
+        entry.target.runOnOwner(() -> this.layOnOwner(entry));
+    }
+
+    private void layOnOwner(final @NotNull Entry entry) {
+        // The entry may have been cancelled, and its chicken released, while the lay hopped over to the owner
+        if (entry.cancelled) return;
+
+        final long now = System.currentTimeMillis();
+
+        // Held back lays stay due and are caught up in one go once they are let through
+        if (!this.throttle.permit(entry.target.getAnchor(), entry.chicken, now, this.maxLays)) {
+            this.submit(entry, now + DEFER_MILLIS);
+            return;
+        }
+
+        final int lays = LayEngine.advance(entry.chicken, now, this.maxLays);
+        if (lays > 0) entry.target.lay(entry.chicken, lays);
+
+        if (!entry.cancelled) this.submit(entry);
+    }
+
+    /**
+     * Credit a chicken with every lay it has missed up until the given time in one step, and move its next lay to the
+     * first lay time after it. Lays beyond the cap are dropped rather than carried over.
+     *
+     * @param chicken The chicken to advance.
+     * @param now The current time in epoch milliseconds.
+     * @param cap The maximum number of lays to credit.
+     * @return The number of lays credited, or {@code 0} if the chicken was not due yet.
+     */
+    public static int advance(final @NotNull Chicken chicken, final long now, final int cap) {
+        final long nextLay = chicken.getNextLayMillis();
+        if (nextLay > now) return 0;
+
+        final long interval = chicken.getLayIntervalMillis();
+        final long missed = (now - nextLay) / interval + 1;
+
+        chicken.setNextLayMillis(nextLay + missed * interval);
+        return (int) Math.min(missed, cap);
+    }
+
+    /**
+     * Get the number of lays {@link #advance(Chicken, long, int)} would credit a chicken with, without advancing it.
+     *
+     * @param chicken The chicken to look at.
+     * @param now The current time in epoch milliseconds.
+     * @param cap The maximum number of lays to credit.
+     * @return The number of lays that are due, or {@code 0} if the chicken was not due yet.
+     */
+    public static int pending(final @NotNull Chicken chicken, final long now, final int cap) {
+        final long nextLay = chicken.getNextLayMillis();
+        if (nextLay > now) return 0;
+
+        return (int) Math.min((now - nextLay) / chicken.getLayIntervalMillis() + 1, cap);
+    }
+
+    /**
+     * A chicken scheduled in the engine.
+     */
+    public static final class Entry {
+
+        private final Chicken chicken;
+        private final LayTarget target;
+
+        private volatile boolean cancelled;
+        private long due;
+
+        private Entry(final Chicken chicken, final LayTarget target) {
+            this.chicken = chicken;
+            this.target = target;
+        }
+
+        public Chicken getChicken() {
+            return chicken;
+        }
+
+        public LayTarget getTarget() {
+            return target;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Stop this chicken from laying. The entry is dropped lazily the next time the engine reaches it.
+         */
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Bulk version of the lay arithmetic, run over struct-of-arrays batches of lay intervals, lay amounts and next lay
+ * times, as looked up in the {@link LayTables}.
+ * <p>
+ * Catching up a chunk or coop full of chickens evaluates the same few operations for every one of them, so the batch
+ * is handed to a plain scalar loop by default, or to a kernel that uses the {@code jdk.incubator.vector} API when the
+ * server was started with {@code --add-modules jdk.incubator.vector}. Both produce exactly the same results as
+ * {@link LayEngine#advance(Chicken, long, int)}.
+ */
+public final class LayKernel {
+
+    private static final Kernel SCALAR = LayKernel::advanceScalar;
+    private static final Kernel KERNEL = LayKernel.load();
+    private static final ThreadLocal<Batch> BATCHES = ThreadLocal.withInitial(Batch::new);
+
+    private LayKernel() { }
+
+    /**
+     * Credit every chicken in a batch with the lays it missed up until the given time, and move its next lay to the
+     * first lay time after it. Chickens that are not due yet are left untouched and credited with nothing.
+     *
+     * @param intervals The lay interval of every chicken in milliseconds.
+     * @param amounts The number of items every chicken lays at once.
+     * @param nextLays The next lay time of every chicken in epoch milliseconds, updated in place.
+     * @param lays Receives the number of lays credited to every chicken, capped at {@code cap}.
+     * @param items Receives the number of items every chicken laid, i.e. its lays times its lay amount.
+     * @param count The number of chickens in the batch, from the start of every array.
+     * @param now The current time in epoch milliseconds.
+     * @param cap The maximum number of lays to credit a single chicken.
+     */
+    public static void advance(final long @NotNull [] intervals, final int @NotNull [] amounts, final long @NotNull [] nextLays,
+                               final int @NotNull [] lays, final int @NotNull [] items, final int count, final long now, final int cap) {
+        KERNEL.advance(intervals, amounts, nextLays, lays, items, count, now, cap);
+    }
+
+    /**
+     * Get the empty scratch batch of the calling thread. The batch is reused by every later call on the same thread, so
+     * it must not be held on to.
+     *
+     * @return The cleared {@link Batch} of the calling thread.
+     */
+    public static @NotNull Batch batch() {
+        final Batch batch = BATCHES.get();
+        batch.size = 0;
+        return batch;
+    }
+
+    /**
+     * Get whether batches are run by the vectorized kernel.
+     *
+     * @return Whether the {@code jdk.incubator.vector} API is in use.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR;
+    }
+
+    static void advanceScalar(final long @NotNull [] intervals, final int @NotNull [] amounts, final long @NotNull [] nextLays,
+                              final int @NotNull [] lays, final int @NotNull [] items, final int count, final long now, final int cap) {
+        LayKernel.advanceScalar(intervals, amounts, nextLays, lays, items, 0, count, now, cap);
+    }
+
+    static void advanceScalar(final long @NotNull [] intervals, final int @NotNull [] amounts, final long @NotNull [] nextLays,
+                              final int @NotNull [] lays, final int @NotNull [] items, final int from, final int to,
+                              final long now, final int cap) {
+        for (int i = from; i < to; i++) {
+            final long nextLay = nextLays[i];
+
+            if (nextLay > now) {
+                lays[i] = 0;
+                items[i] = 0;
+                continue;
+            }
+
+            final long interval = intervals[i];
+            final long missed = (now - nextLay) / interval + 1;
+
+            nextLays[i] = nextLay + missed * interval;
+            lays[i] = (int) Math.min(missed, cap);
+            items[i] = lays[i] * amounts[i];
+        }
+    }
+
+    private static @NotNull Kernel load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return SCALAR;
+
+        try {
+            final Kernel kernel = (Kernel) Class.forName(LayKernel.class.getPackageName() + ".VectorLayKernel")
+                    .getDeclaredConstructor().newInstance();
+
+            // Some platforms expose the API without any lanes to spare, where it is only slower
+            return kernel.isUseful() ? kernel : SCALAR;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * Growable struct-of-arrays batch of chickens to {@link #advance(long, int) advance} together.
+     */
+    public static final class Batch {
+
+        private long[] intervals = new long[64];
+        private int[] amounts = new int[64];
+        private long[] nextLays = new long[64];
+        private int[] lays = new int[64];
+        private int[] items = new int[64];
+        private int size;
+
+        private Batch() { }
+
+        /**
+         * Add a chicken to the end of this batch.
+         *
+         * @param chicken The chicken to add.
+         * @return The index of the chicken in this batch.
+         */
+        public int add(final @NotNull Chicken chicken) {
+            if (size == intervals.length) {
+                final int capacity = size * 2;
+                intervals = Arrays.copyOf(intervals, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                nextLays = Arrays.copyOf(nextLays, capacity);
+                lays = Arrays.copyOf(lays, capacity);
+                items = Arrays.copyOf(items, capacity);
+            }
+
+            intervals[size] = chicken.getLayIntervalMillis();
+            amounts[size] = chicken.getLayAmount();
+            nextLays[size] = chicken.getNextLayMillis();
+            return size++;
+        }
+
+        /**
+         * Run every chicken in this batch through {@link LayKernel#advance(long[], int[], long[], int[], int[], int, long, int)}.
+         * The chickens themselves are not touched, their new next lay times are only kept in the batch.
+         *
+         * @param now The current time in epoch milliseconds.
+         * @param cap The maximum number of lays to credit a single chicken.
+         */
+        public void advance(final long now, final int cap) {
+            KERNEL.advance(intervals, amounts, nextLays, lays, items, size, now, cap);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getNextLay(final int index) {
+            return nextLays[index];
+        }
+
+        public int getLays(final int index) {
+            return lays[index];
+        }
+
+        public int getItems(final int index) {
+            return items[index];
+        }
+
+    }
+
+    interface Kernel {
+
+        void advance(long @NotNull [] intervals, int @NotNull [] amounts, long @NotNull [] nextLays, int @NotNull [] lays,
+                     int @NotNull [] items, int count, long now, int cap);
+
+        default boolean isUseful() {
+            return true;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Item;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.BoundingBox;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Hands the output of a lay to the world while keeping the number of item entities in check.
+ * <p>
+ * Output first tops up item entities of the same item already lying nearby, and only then spawns new item entities, as
+ * long as the chunk holds fewer than the configured number of them. Whatever is left over is handed back to the caller,
+ * which can keep it around and try again later.
+ */
+public final class LayOutput {
+
+    private static volatile double mergeRadius = 2.0;
+    private static volatile int maxGroundItems = 64;
+
+    private LayOutput() { }
+
+    /**
+     * Configure how output is dropped on the ground.
+     *
+     * @param mergeRadius The distance in blocks within which output is merged into item entities already lying there.
+     * @param maxGroundItems The most item entities a chunk may hold before output stops being dropped in it.
+     */
+    public static void configure(final double mergeRadius, final int maxGroundItems) {
+        LayOutput.mergeRadius = Math.max(0.0, mergeRadius);
+        LayOutput.maxGroundItems = Math.max(0, maxGroundItems);
+    }
+
+    /**
+     * Drop the given amount of an item at a location. Must be called on the thread owning the location.
+     *
+     * @param location The location to drop the items at.
+     * @param item The item to drop.
+     * @param amount The total number of items to drop.
+     * @return The number of items that could not be dropped.
+     */
+    public static int deliver(final @NotNull Location location, final @NotNull ItemStack item, int amount) {
+        if (amount > 0) amount = LayOutput.merge(location, item, amount);
+        if (amount > 0) amount = LayOutput.spawn(location, item, amount);
+
+        return amount;
+    }
+
+    private static int merge(final @NotNull Location location, final @NotNull ItemStack item, int amount) {
+        if (mergeRadius <= 0.0) return amount;
+
+        for (final Item entity : location.getNearbyEntitiesByType(Item.class, mergeRadius)) {
+            if (!entity.isValid()) continue;
+
+            final ItemStack stack = entity.getItemStack();
+            final int space = stack.getMaxStackSize() - stack.getAmount();
+            if (space <= 0 || !stack.isSimilar(item)) continue;
+
+            final int added = Math.min(space, amount);
+            stack.setAmount(stack.getAmount() + added);
+            entity.setItemStack(stack);
+
+            amount -= added;
+            if (amount <= 0) return 0;
+        }
+
+        return amount;
+    }
+
+    private static int spawn(final @NotNull Location location, final @NotNull ItemStack item, int amount) {
+        final World world = location.getWorld();
+        final int chunkX = location.getBlockX() >> 4, chunkZ = location.getBlockZ() >> 4;
+        final BoundingBox bounds = new BoundingBox(chunkX << 4, world.getMinHeight(), chunkZ << 4,
+                (chunkX << 4) + 16, world.getMaxHeight(), (chunkZ << 4) + 16);
+
+        int budget = maxGroundItems - world.getNearbyEntities(bounds, entity -> entity instanceof Item).size();
+        final int maxStackSize = item.getMaxStackSize();
+
+        while (amount > 0 && budget-- > 0) {
+            final ItemStack stack = item.clone();
+            stack.setAmount(Math.min(amount, maxStackSize));
+            amount -= stack.getAmount();
+
+            world.dropItemNaturally(location, stack);
+        }
+
+        return amount;
+    }
+
+}
\ No newline at end of file
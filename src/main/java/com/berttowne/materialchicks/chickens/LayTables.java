@@ -0,0 +1,92 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.logging.Logger;
+
+/**
+ * Dense lookup tables holding the lay interval and lay amount of every chicken type at every stat value, built from the
+ * config after the {@link ChickenTypes} are loaded.
+ * <p>
+ * Stats are packed into eight bits each, so every type gets a row of 256 entries per table and a lookup is a single
+ * array index with no clamping and no arithmetic. The interval only depends on the growth of a chicken and the amount
+ * only on its gain; strength does not affect laying.
+ * <p>
+ * Each type has a base interval, reached at a growth of one, and a base amount, reached at a gain below five. Every
+ * point of growth above one shaves a tenth off the base interval, and a gain of five and ten each add one item.
+ */
+public final class LayTables {
+
+    public static final long DEFAULT_INTERVAL_SECONDS = 300L;
+    public static final int DEFAULT_AMOUNT = 1;
+
+    private static final int ROW_SHIFT = 8;
+    private static final int ROW_SIZE = 1 << ROW_SHIFT;
+
+    private static volatile long[] intervals = new long[0];
+    private static volatile int[] amounts = new int[0];
+
+    private LayTables() { }
+
+    /**
+     * Build the tables for every loaded chicken type. Base rates are read from {@code types.<type>.lay-interval}, in
+     * seconds, and {@code types.<type>.lay-amount} in the given config section.
+     *
+     * @param config The {@code chickens} config section, if any.
+     * @param logger The logger to report invalid rates to.
+     */
+    public static void load(final @Nullable ConfigurationSection config, final @NotNull Logger logger) {
+        final long[] loadedIntervals = new long[ChickenTypes.size() << ROW_SHIFT];
+        final int[] loadedAmounts = new int[ChickenTypes.size() << ROW_SHIFT];
+
+        for (final ChickenType type : ChickenTypes.all()) {
+            final String path = "types." + type.name() + ".";
+            long baseInterval = config == null ? DEFAULT_INTERVAL_SECONDS : config.getLong(path + "lay-interval", DEFAULT_INTERVAL_SECONDS);
+            int baseAmount = config == null ? DEFAULT_AMOUNT : config.getInt(path + "lay-amount", DEFAULT_AMOUNT);
+
+            if (baseInterval < 1L) {
+                logger.warning("The lay interval of " + type.name() + " chickens must be at least one second, using " + DEFAULT_INTERVAL_SECONDS);
+                baseInterval = DEFAULT_INTERVAL_SECONDS;
+            }
+
+            if (baseAmount < 1) {
+                logger.warning("The lay amount of " + type.name() + " chickens must be at least one, using " + DEFAULT_AMOUNT);
+                baseAmount = DEFAULT_AMOUNT;
+            }
+
+            final int row = type.id() << ROW_SHIFT;
+            for (int stat = 0; stat < ROW_SIZE; stat++) {
+                loadedIntervals[row + stat] = baseInterval * 100L * (11 - Math.clamp(stat, 1, 10));
+                loadedAmounts[row + stat] = baseAmount + (stat >= 5 ? 1 : 0) + (stat >= 10 ? 1 : 0);
+            }
+        }
+
+        amounts = loadedAmounts;
+        intervals = loadedIntervals;
+    }
+
+    /**
+     * Get the lay interval of a chicken.
+     *
+     * @param type The id of the {@link ChickenType}.
+     * @param stats The stats packed with {@link ChickenStore#packStats(int, int, int)}.
+     * @return The lay interval in milliseconds.
+     */
+    public static long intervalMillis(final int type, final int stats) {
+        return intervals[type << ROW_SHIFT | ChickenStore.growth(stats)];
+    }
+
+    /**
+     * Get the number of items a chicken lays at once.
+     *
+     * @param type The id of the {@link ChickenType}.
+     * @param stats The stats packed with {@link ChickenStore#packStats(int, int, int)}.
+     * @return The number of items per lay.
+     */
+    public static int layAmount(final int type, final int stats) {
+        return amounts[type << ROW_SHIFT | ChickenStore.gain(stats)];
+    }
+
+}
\ No newline at end of file
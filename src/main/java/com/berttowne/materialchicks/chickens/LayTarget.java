@@ -0,0 +1,37 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Something that receives the output of a scheduled {@link Chicken}, such as a coop or a live chicken entity.
+ */
+public interface LayTarget {
+
+    /**
+     * Get the location used to pick the owning region for this target. Lays for targets whose anchors share a
+     * chunk are handed to that region together in a single task.
+     *
+     * @return The anchor location of this target.
+     */
+    @NotNull Location getAnchor();
+
+    /**
+     * Run a task on the thread owning this target. Called on the thread owning {@link #getAnchor()}, which is the
+     * owner of a target that never moves, so by default the task is run right away.
+     *
+     * @param run The task to run.
+     */
+    default void runOnOwner(final @NotNull Runnable run) {
+        run.run();
+    }
+
+    /**
+     * Called on the thread owning this target when a chicken scheduled against it is due.
+     *
+     * @param chicken The chicken that is laying.
+     * @param lays The number of lays that came due, always at least one.
+     */
+    void lay(@NotNull Chicken chicken, int lays);
+
+}
\ No newline at end of file
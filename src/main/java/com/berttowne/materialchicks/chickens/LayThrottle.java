@@ -0,0 +1,205 @@
+package com.berttowne.materialchicks.chickens;
+
+import com.google.common.collect.Maps;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a due lay may go ahead right now, so that laying slows down before it makes a busy region lag.
+ * <p>
+ * The load of a region is read from the server's own figures rather than measured by the plugin. On Paper this is the
+ * average time the server spends per tick. Folia only reports the TPS of each region, which stays at 20 until a tick
+ * takes longer than the 50 milliseconds it has, so there a region only counts as busy once it starts falling behind.
+ * The figures are sampled at most once a second per 16 by 16 chunk section, the unit Folia builds its regions from.
+ * While a region is over the configured budget, lays that are not overdue by more than the maximum deferral are held
+ * back. Nothing is lost by holding a lay back: the chicken stays due and is credited with every lay it missed in one
+ * go once the region has headroom again, up to the usual catch-up cap. On top of that, a server-wide token bucket caps
+ * the number of items laid per second no matter how healthy the regions are.
+ */
+public final class LayThrottle {
+
+    // Block coordinates to 16 by 16 chunk sections
+    private static final int SECTION_SHIFT = 8;
+    private static final long SAMPLE_NANOS = 1_000_000_000L;
+    private static final long SAMPLE_IDLE_NANOS = 30_000_000_000L;
+    private static final double TICK_MILLIS = 50.0;
+    private static final boolean FOLIA = LayThrottle.isFolia();
+
+    private final Map<SectionKey, Sample> samples = Maps.newConcurrentMap();
+    private final LongAdder deferredByLoad = new LongAdder();
+    private final LongAdder deferredByRate = new LongAdder();
+
+    private volatile boolean enabled;
+    private volatile double maxTickMillis = 45.0;
+    private volatile long maxDeferMillis = 60_000L;
+
+    // Token bucket, guarded by this
+    private double itemsPerSecond;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * Configure the throttle.
+     *
+     * @param maxTickMillis The average time in milliseconds a region may spend per tick before it defers lays, or
+     *                      {@code 0} to never defer lays because of load.
+     * @param maxDeferMillis The longest a lay is deferred because of load before it goes ahead anyway.
+     * @param itemsPerSecond The most items laid per second across the whole server, or {@code 0} for no limit.
+     */
+    public synchronized void configure(final double maxTickMillis, final long maxDeferMillis, final double itemsPerSecond) {
+        this.enabled = maxTickMillis > 0.0;
+        this.maxTickMillis = maxTickMillis;
+        this.maxDeferMillis = Math.max(0L, maxDeferMillis);
+        this.itemsPerSecond = Math.max(0.0, itemsPerSecond);
+        this.tokens = this.itemsPerSecond;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Forget every sampled tick length.
+     */
+    public void stop() {
+        samples.clear();
+    }
+
+    /**
+     * Check whether a chicken that is due may lay now. Must be called on the thread owning the anchor. A lay that is
+     * turned down leaves the chicken untouched, so it should simply be asked about again later.
+     *
+     * @param anchor The location the chicken lays at.
+     * @param chicken The chicken that is due.
+     * @param now The current time in epoch milliseconds.
+     * @param cap The maximum number of lays credited to the chicken.
+     * @return Whether the chicken may lay now.
+     */
+    public boolean permit(final @NotNull Location anchor, final @NotNull Chicken chicken, final long now, final int cap) {
+        final long overdue = now - chicken.getNextLayMillis();
+
+        if (enabled && overdue < maxDeferMillis && this.isBusy(anchor)) {
+            deferredByLoad.increment();
+            return false;
+        }
+
+        if (!this.acquire((long) LayEngine.pending(chicken, now, cap) * chicken.getLayAmount())) {
+            deferredByRate.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the average tick length of the region owning a location, as last sampled from the server.
+     *
+     * @param anchor The location to get the tick length for.
+     * @return The average tick length in milliseconds, or {@code 0} while it is not known.
+     */
+    public double getTickMillis(final @NotNull Location anchor) {
+        final long now = System.nanoTime();
+        final SectionKey key = SectionKey.of(anchor);
+
+        Sample sample = samples.get(key);
+        if (sample == null || now - sample.sampledAt() > SAMPLE_NANOS) {
+            sample = new Sample(LayThrottle.readTickMillis(anchor), now);
+            samples.put(key, sample);
+        }
+
+        return sample.tickMillis();
+    }
+
+    /**
+     * Get the average tick length of every section that has been sampled recently.
+     *
+     * @return A snapshot of the average tick lengths in milliseconds, keyed by {@code world:sectionX,sectionZ}.
+     */
+    public @NotNull Map<String, Double> getTickMillis() {
+        final long now = System.nanoTime();
+        final Map<String, Double> ticks = new TreeMap<>();
+
+        // Sections stop being sampled once their chickens unload, so stale ones are dropped here
+        samples.entrySet().removeIf(entry -> now - entry.getValue().sampledAt() > SAMPLE_IDLE_NANOS);
+        samples.forEach((key, sample) -> ticks.put(key.toString(), sample.tickMillis()));
+
+        return ticks;
+    }
+
+    /**
+     * Get the number of lays deferred because their region was over its tick budget.
+     *
+     * @return The number of lays deferred because of load since the server started.
+     */
+    public long getDeferredByLoad() {
+        return deferredByLoad.sum();
+    }
+
+    /**
+     * Get the number of lays deferred because the server-wide item rate was used up.
+     *
+     * @return The number of lays deferred because of the item rate since the server started.
+     */
+    public long getDeferredByRate() {
+        return deferredByRate.sum();
+    }
+
+    private synchronized boolean acquire(final long items) {
+        if (itemsPerSecond <= 0.0) return true;
+
+        final long now = System.nanoTime();
+        tokens = Math.min(itemsPerSecond, tokens + (now - refilledAt) / 1_000_000_000.0 * itemsPerSecond);
+        refilledAt = now;
+
+        // A single lay larger than the whole bucket still goes through once the bucket is full
+        final double needed = Math.min(items, itemsPerSecond);
+        if (tokens < needed) return false;
+
+        tokens -= needed;
+        return true;
+    }
+
+    private boolean isBusy(final @NotNull Location anchor) {
+        // Folia regions report about 20 TPS, and so about one tick length, for as long as they keep up
+        final double budget = FOLIA ? Math.max(maxTickMillis, TICK_MILLIS + 1.0) : maxTickMillis;
+        return this.getTickMillis(anchor) > budget;
+    }
+
+    private static double readTickMillis(final @NotNull Location anchor) {
+        if (!FOLIA) return Bukkit.getAverageTickTime();
+
+        // The shortest window the server keeps, so the throttle reacts within seconds
+        final double[] tps = Bukkit.getRegionTPS(anchor);
+        return tps == null || tps.length == 0 || tps[0] <= 0.0 ? 0.0 : 1000.0 / tps[0];
+    }
+
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private record Sample(double tickMillis, long sampledAt) { }
+
+    private record SectionKey(UUID world, int x, int z) {
+
+        private static @NotNull SectionKey of(final @NotNull Location location) {
+            return new SectionKey(location.getWorld().getUID(), location.getBlockX() >> SECTION_SHIFT, location.getBlockZ() >> SECTION_SHIFT);
+        }
+
+        @Override
+        public @NotNull String toString() {
+            final World world = Bukkit.getWorld(this.world);
+            return (world == null ? this.world.toString() : world.getName()) + ":" + x + "," + z;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+package com.berttowne.materialchicks.coop;
+
+import com.berttowne.materialchicks.chickens.Chicken;
+import com.berttowne.materialchicks.chickens.ChickenType;
+import com.berttowne.materialchicks.chickens.ChickenTypes;
+import com.berttowne.materialchicks.chickens.LayKernel;
+import com.berttowne.materialchicks.chickens.LayOutput;
+import com.berttowne.materialchicks.chickens.LayThrottle;
+import com.berttowne.materialchicks.chickens.LayTarget;
+import com.berttowne.materialchicks.storage.CoopData;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.Container;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.ItemDisplay;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A coop block holding chickens. A coop is owned by the region its block is in and must only be touched from there.
+ * <p>
+ * Chickens in a coop are not scheduled individually; the coop is ticked by its {@link CoopRegistry} shard and lays
+ * every chicken that has come due. Chickens in a coop exist only as {@link Chicken} records, never as live entities,
+ * so a coop costs the same to tick whether it holds one chicken or hundreds. At most a single non-persistent display
+ * entity is spawned on top of the coop to show what it holds.
+ * <p>
+ * Lays never touch the world directly: their output is added to a per-material buffer, which is flushed on a fixed
+ * interval into containers touching the coop block with one batched transfer per container, then on top of the coop
+ * through {@link LayOutput}. Whatever neither has room for stays buffered, is saved with the coop, and is retried on
+ * the next flush.
+ */
+public class Coop implements LayTarget {
+
+    private static final BlockFace[] CONTAINER_FACES = {
+            BlockFace.DOWN, BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP
+    };
+
+    private final UUID id;
+    private final UUID owner;
+    private final Location location;
+    private final List<Chicken> chickens = new ArrayList<>();
+    private final Object2IntOpenHashMap<Material> output = new Object2IntOpenHashMap<>();
+
+    private long nextDue = Long.MAX_VALUE;
+    private long nextFlush;
+    private boolean released;
+    private @Nullable ItemDisplay display;
+
+    public Coop(@NotNull UUID id, @Nullable UUID owner, @NotNull Location location) {
+        this.id = id;
+        this.owner = owner;
+        this.location = location.toBlockLocation();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public @Nullable UUID getOwner() {
+        return owner;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    public Location getLocation() {
+        return location.clone();
+    }
+
+    public List<Chicken> getChickens() {
+        return Collections.unmodifiableList(chickens);
+    }
+
+    /**
+     * Get the output this coop laid but could not deliver yet.
+     *
+     * @return An unmodifiable view of the number of undelivered items per material.
+     */
+    public Map<Material, Integer> getOutput() {
+        return Collections.unmodifiableMap(output);
+    }
+
+    public void addChicken(@NotNull Chicken chicken) {
+        chickens.add(chicken);
+        nextDue = Math.min(nextDue, chicken.getNextLayMillis());
+        if (chickens.size() == 1) this.updateDisplay();
+    }
+
+    public boolean removeChicken(@NotNull Chicken chicken) {
+        final boolean removed = chickens.remove(chicken);
+        if (removed && chickens.isEmpty()) this.updateDisplay();
+
+        return removed;
+    }
+
+    /**
+     * Show a display entity on top of this coop holding the first chicken in it. The entity is not saved with the
+     * chunk and has no AI, it is purely cosmetic.
+     */
+    public void showDisplay() {
+        if (display != null && display.isValid()) return;
+
+        this.display = location.getWorld().spawn(location.clone().add(0.5, 1.35, 0.5), ItemDisplay.class, entity -> {
+            entity.setPersistent(false);
+            entity.setBillboard(Display.Billboard.VERTICAL);
+            entity.setItemStack(chickens.isEmpty() ? null : chickens.getFirst().toItemStack());
+        });
+    }
+
+    /**
+     * Remove the display entity of this coop, if it has one.
+     */
+    public void hideDisplay() {
+        if (display == null) return;
+
+        display.remove();
+        this.display = null;
+    }
+
+    private void updateDisplay() {
+        if (display == null || !display.isValid()) return;
+
+        display.setItemStack(chickens.isEmpty() ? null : chickens.getFirst().toItemStack());
+    }
+
+    /**
+     * Free the {@link com.berttowne.materialchicks.chickens.ChickenStore} slots of every chicken in this coop. The coop
+     * must not be used afterwards.
+     */
+    public void release() {
+        this.released = true;
+        this.hideDisplay();
+        chickens.forEach(Chicken::release);
+        chickens.clear();
+    }
+
+    /**
+     * Lay every chicken that has come due, and check whether the buffered output is due to be {@link #flush() flushed}.
+     * Flushing is left to the caller, so that it can be spread out along with other work.
+     *
+     * @param now The current time in epoch milliseconds.
+     * @param maxLays The maximum number of lays credited to a single chicken.
+     * @param flushInterval The number of milliseconds between two flushes of the output of this coop.
+     * @param throttle The {@link LayThrottle} asked before every lay.
+     * @return Whether the output of this coop should be flushed now.
+     */
+    public boolean tick(final long now, final int maxLays, final long flushInterval, final @NotNull LayThrottle throttle) {
+        final boolean flush = now >= nextFlush && !output.isEmpty();
+        if (flush) this.nextFlush = now + flushInterval;
+
+        if (now < nextDue) return flush;
+
+        final LayKernel.Batch batch = LayKernel.batch();
+        for (int i = 0; i < chickens.size(); i++) batch.add(chickens.get(i));
+        batch.advance(now, maxLays);
+
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < chickens.size(); i++) {
+            final Chicken chicken = chickens.get(i);
+
+            // A chicken held back by the throttle stays due and is asked about again next tick
+            if (batch.getLays(i) > 0 && throttle.permit(location, chicken, now, maxLays)) {
+                chicken.setNextLayMillis(batch.getNextLay(i));
+                output.addTo(chicken.getType().material(), batch.getItems(i));
+            }
+
+            earliest = Math.min(earliest, chicken.getNextLayMillis());
+        }
+
+        this.nextDue = earliest;
+        return flush;
+    }
+
+    @Override
+    public @NotNull Location getAnchor() {
+        return location;
+    }
+
+    @Override
+    public void lay(final @NotNull Chicken chicken, final int lays) {
+        output.addTo(chicken.getType().material(), lays * chicken.getLayAmount());
+    }
+
+    /**
+     * Take everything buffered in this coop out of it, e.g. to drop it when the coop is broken.
+     *
+     * @return The buffered output as item stacks no larger than each item allows.
+     */
+    public @NotNull List<ItemStack> takeOutput() {
+        final List<ItemStack> stacks = this.toStacks();
+        output.clear();
+        return stacks;
+    }
+
+    /**
+     * Hand the buffered output to the containers touching this coop in a single {@link Inventory#addItem} call each,
+     * then drop what they have no room for through {@link LayOutput}. Anything still left stays buffered. Does nothing
+     * once the coop is released, as its output has already been saved.
+     */
+    public void flush() {
+        if (released || output.isEmpty()) return;
+
+        ItemStack[] stacks = this.toStacks().toArray(ItemStack[]::new);
+
+        for (final Inventory container : this.containers()) {
+            stacks = container.addItem(stacks).values().toArray(ItemStack[]::new);
+            if (stacks.length == 0) break;
+        }
+
+        output.clear();
+
+        final Location drop = this.dropLocation();
+        for (final ItemStack stack : stacks) {
+            final int leftover = LayOutput.deliver(drop, stack, stack.getAmount());
+            if (leftover > 0) output.addTo(stack.getType(), leftover);
+        }
+    }
+
+    private @NotNull List<ItemStack> toStacks() {
+        final List<ItemStack> stacks = new ArrayList<>(output.size());
+
+        output.object2IntEntrySet().fastForEach(entry -> {
+            final int maxStackSize = entry.getKey().getMaxStackSize();
+
+            for (int amount = entry.getIntValue(); amount > 0; amount -= maxStackSize) {
+                stacks.add(new ItemStack(entry.getKey(), Math.min(amount, maxStackSize)));
+            }
+        });
+
+        return stacks;
+    }
+
+    private @NotNull Location dropLocation() {
+        return location.clone().add(0.5, 1.0, 0.5);
+    }
+
+    private @NotNull List<Inventory> containers() {
+        final Block block = location.getBlock();
+        final List<Inventory> containers = new ArrayList<>(1);
+
+        for (final BlockFace face : CONTAINER_FACES) {
+            if (block.getRelative(face).getState(false) instanceof Container container) containers.add(container.getInventory());
+        }
+
+        return containers;
+    }
+
+    /**
+     * Take a snapshot of this coop that can be handed to a {@link com.berttowne.materialchicks.storage.CoopStorage}.
+     *
+     * @return The {@link CoopData} describing this coop.
+     */
+    public @NotNull CoopData toData() {
+        final List<CoopData.ChickenData> data = new ArrayList<>(chickens.size());
+        for (final Chicken chicken : chickens) {
+            data.add(new CoopData.ChickenData(chicken.getChickenType(), chicken.getStats(), chicken.getNextLayMillis()));
+        }
+
+        final Map<String, Integer> stored = new HashMap<>(output.size());
+        output.object2IntEntrySet().fastForEach(entry -> stored.put(entry.getKey().getKey().toString(), entry.getIntValue()));
+
+        return new CoopData(id, owner, location.getWorld().getUID(), location.getBlockX(), location.getBlockY(),
+                location.getBlockZ(), List.copyOf(data), Map.copyOf(stored));
+    }
+
+    /**
+     * Recreate a coop from a snapshot. Chickens whose type no longer exists and output of unknown materials are dropped.
+     *
+     * @param data The snapshot to recreate the coop from.
+     * @return The recreated {@link Coop}, or {@code null} if the world of the coop is not loaded.
+     */
+    public static @Nullable Coop fromData(@NotNull CoopData data) {
+        final World world = Bukkit.getWorld(data.world());
+        if (world == null) return null;
+
+        final Coop coop = new Coop(data.id(), data.owner(), new Location(world, data.x(), data.y(), data.z()));
+        for (final CoopData.ChickenData chicken : data.chickens()) {
+            final ChickenType type = ChickenTypes.byName(chicken.type());
+            if (type == null) continue;
+
+            coop.addChicken(Chicken.fromPacked(type, chicken.stats(), chicken.nextLay()));
+        }
+
+        data.output().forEach((name, amount) -> {
+            final Material material = Material.matchMaterial(name);
+            if (material != null && amount > 0) coop.output.addTo(material, amount);
+        });
+
+        return coop;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.berttowne.materialchicks.coop;
+
+import com.berttowne.materialchicks.util.item.ItemBuilder;
+import com.berttowne.materialchicks.util.item.custom.CustomItem;
+import com.google.auto.service.AutoService;
+import com.google.inject.Inject;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Custom item that places a {@link Coop} when placed as a block
+ */
+@AutoService(CustomItem.class)
+public class CoopItem extends CustomItem {
+
+    public static final String NAME = "coop";
+
+    @Inject private CoopService coopService;
+
+    public CoopItem() {
+        super(NAME);
+    }
+
+    @Override
+    protected ItemStack createItemStack(final String... data) {
+        return new ItemBuilder(Material.COMPOSTER)
+                .customModelData("coop")
+                .displayName(Component.text("Chicken Coop", NamedTextColor.YELLOW))
+                .lore(Component.text("Place it and right-click it with chickens to fill it", NamedTextColor.GRAY))
+                .build();
+    }
+
+    @Override
+    public List<String> getTabCompletions(final List<String> currentArgs) {
+        return List.of();
+    }
+
+    @Override
+    public boolean handlePlacement(final Player player, final BlockPlaceEvent event) {
+        coopService.createCoop(player.getUniqueId(), event.getBlockPlaced().getLocation());
+        return true;
+    }
+
+}
\ No newline at end of file
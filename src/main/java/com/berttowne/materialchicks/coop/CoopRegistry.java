@@ -0,0 +1,206 @@
+package com.berttowne.materialchicks.coop;
+
+import com.berttowne.materialchicks.util.Scheduler;
+import com.google.common.collect.Maps;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Index of every loaded {@link Coop}, sharded so that region threads never contend with each other.
+ * <p>
+ * Coops are grouped into shards of 16 by 16 chunks per world, the same sections Folia builds its regions from. A
+ * section always belongs to exactly one region, so a shard is only ever touched by the thread ticking that region and
+ * needs no locking; only finding or creating a shard goes through a concurrent map. Each shard runs a single repeating
+ * task on its region that ticks all of its coops, rather than every coop scheduling its own task.
+ * <p>
+ * Apart from {@link #size()}, every method must be called on the thread owning the location or chunk passed to it.
+ */
+public final class CoopRegistry {
+
+    private static final int SECTION_SHIFT = 4;
+
+    private final Map<ShardKey, Shard> shards = Maps.newConcurrentMap();
+    private final Consumer<Coop> ticker;
+    private final long period;
+
+    private volatile boolean closed;
+
+    /**
+     * Create an empty registry.
+     *
+     * @param ticker Called on the owning region thread for every coop each time its shard ticks.
+     * @param period The number of ticks between two ticks of a shard.
+     */
+    public CoopRegistry(final @NotNull Consumer<Coop> ticker, final long period) {
+        this.ticker = ticker;
+        this.period = Math.max(1L, period);
+    }
+
+    /**
+     * Add a coop to the registry and start ticking it.
+     *
+     * @param coop The coop to add.
+     */
+    public void add(final @NotNull Coop coop) {
+        final Location location = coop.getLocation();
+        final long chunkKey = Chunk.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+
+        final Shard shard = shards.computeIfAbsent(ShardKey.of(location.getWorld(), chunkKey), key -> new Shard(key, location));
+        shard.coops.computeIfAbsent(chunkKey, key -> new ArrayList<>(1)).add(coop);
+        shard.size++;
+
+        if (shard.task == null && !closed) {
+            shard.task = Scheduler.repeat(shard.anchor, task -> this.tick(shard), period, period);
+        }
+    }
+
+    /**
+     * Remove a coop from the registry and stop ticking it.
+     *
+     * @param coop The coop to remove.
+     * @return Whether the coop was in the registry.
+     */
+    public boolean remove(final @NotNull Coop coop) {
+        final Location location = coop.getLocation();
+        final long chunkKey = Chunk.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+
+        final Shard shard = shards.get(ShardKey.of(location.getWorld(), chunkKey));
+        if (shard == null) return false;
+
+        final List<Coop> coops = shard.coops.get(chunkKey);
+        if (coops == null || !coops.remove(coop)) return false;
+
+        if (coops.isEmpty()) shard.coops.remove(chunkKey);
+        if (--shard.size == 0) this.discard(shard);
+
+        return true;
+    }
+
+    /**
+     * Get the coop whose block is at a location.
+     *
+     * @param location The location of the coop block.
+     * @return The {@link Coop} at the location, or {@code null} if there is none.
+     */
+    public @Nullable Coop get(final @NotNull Location location) {
+        final int x = location.getBlockX(), y = location.getBlockY(), z = location.getBlockZ();
+
+        for (final Coop coop : this.getCoops(location.getWorld(), x >> 4, z >> 4)) {
+            final Location coopLocation = coop.getLocation();
+            if (coopLocation.getBlockX() == x && coopLocation.getBlockY() == y && coopLocation.getBlockZ() == z) return coop;
+        }
+
+        return null;
+    }
+
+    /**
+     * Get every coop in a chunk.
+     *
+     * @param world The world of the chunk.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @return An unmodifiable view of the coops in the chunk.
+     */
+    public @NotNull List<Coop> getCoops(final @NotNull World world, final int chunkX, final int chunkZ) {
+        final long chunkKey = Chunk.getChunkKey(chunkX, chunkZ);
+
+        final Shard shard = shards.get(ShardKey.of(world, chunkKey));
+        if (shard == null) return List.of();
+
+        final List<Coop> coops = shard.coops.get(chunkKey);
+        return coops == null ? List.of() : Collections.unmodifiableList(coops);
+    }
+
+    /**
+     * Get a snapshot of every loaded coop. Only safe to use once no region is ticking anymore, e.g. on shutdown.
+     *
+     * @return A new list of every coop in the registry.
+     */
+    public @NotNull List<Coop> getCoops() {
+        final List<Coop> all = new ArrayList<>();
+        for (final Shard shard : shards.values()) shard.coops.values().forEach(all::addAll);
+
+        return all;
+    }
+
+    /**
+     * Get the number of loaded coops. The count is only a snapshot, as other regions may be adding or removing coops
+     * at the same time.
+     *
+     * @return The number of coops in the registry.
+     */
+    public int size() {
+        int size = 0;
+        for (final Shard shard : shards.values()) size += shard.size;
+
+        return size;
+    }
+
+    /**
+     * Stop ticking every shard and forget every coop.
+     */
+    public void close() {
+        this.closed = true;
+
+        for (final Shard shard : shards.values()) {
+            if (shard.task != null) shard.task.cancel();
+        }
+
+        shards.clear();
+    }
+
+    private void tick(final @NotNull Shard shard) {
+        for (final List<Coop> coops : shard.coops.values()) {
+            for (int i = 0; i < coops.size(); i++) ticker.accept(coops.get(i));
+        }
+    }
+
+    private void discard(final @NotNull Shard shard) {
+        if (shard.task != null) {
+            shard.task.cancel();
+            shard.task = null;
+        }
+
+        shards.remove(shard.key, shard);
+    }
+
+    private record ShardKey(UUID world, long section) {
+
+        private static @NotNull ShardKey of(final @NotNull World world, final long chunkKey) {
+            final int chunkX = (int) chunkKey, chunkZ = (int) (chunkKey >> 32);
+            return new ShardKey(world.getUID(), Chunk.getChunkKey(chunkX >> SECTION_SHIFT, chunkZ >> SECTION_SHIFT));
+        }
+
+    }
+
+    private static final class Shard {
+
+        private final ShardKey key;
+        private final Location anchor;
+        private final Long2ObjectMap<List<Coop>> coops = new Long2ObjectOpenHashMap<>();
+
+        // Only written by the region thread owning this shard, read racily by size()
+        private volatile int size;
+        private ScheduledTask task;
+
+        private Shard(final @NotNull ShardKey key, final @NotNull Location anchor) {
+            this.key = key;
+            this.anchor = anchor;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package com.berttowne.materialchicks.coop;
+
+import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.chickens.Chicken;
+import com.berttowne.materialchicks.chickens.ChickenService;
+import com.berttowne.materialchicks.storage.StorageService;
+import com.berttowne.materialchicks.util.Scheduler;
+import com.berttowne.materialchicks.util.TaskProfiler;
+import com.berttowne.materialchicks.util.injection.Service;
+import com.berttowne.materialchicks.util.item.custom.CustomItemException;
+import com.berttowne.materialchicks.util.item.custom.CustomItemService;
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Keeps the coops of loaded chunks in the {@link CoopRegistry}.
+ * <p>
+ * Coops are only resident while their chunk is loaded: when a chunk loads its coops are read from storage and rebuilt
+ * off the region thread, then swapped into the registry in a single region task. When it unloads they are saved and
+ * evicted again, so memory scales with the loaded chunks rather than with every coop on the server.
+ */
+@Singleton
+@AutoService({Service.class, Listener.class})
+public class CoopService implements Service, Listener {
+
+    // Players adding or taking chickens click in quick succession, so their changes are saved together
+    private static final long SAVE_DELAY_TICKS = 20L;
+    private static final TaskProfiler.Site FLUSH_SITE = TaskProfiler.site("CoopService#tick");
+
+    private final MaterialChicks plugin;
+    private final ChickenService chickenService;
+    private final StorageService storageService;
+    private final CustomItemService customItemService;
+    private final Map<ChunkPos, Object> hydrating = Maps.newConcurrentMap();
+
+    private CoopRegistry registry;
+    private int maxChickens;
+    private long flushInterval;
+    private boolean displays;
+
+    @Inject
+    public CoopService(MaterialChicks plugin, ChickenService chickenService, StorageService storageService, CustomItemService customItemService) {
+        this.plugin = plugin;
+        this.chickenService = chickenService;
+        this.storageService = storageService;
+        this.customItemService = customItemService;
+    }
+
+    @Override
+    public void onLoad() {
+        this.registry = new CoopRegistry(this::tick, plugin.getConfig().getLong("coops.tick-interval", 20L));
+        this.maxChickens = Math.max(1, plugin.getConfig().getInt("coops.max-chickens", 256));
+        this.displays = plugin.getConfig().getBoolean("coops.display", true);
+        this.flushInterval = Math.max(1L, plugin.getConfig().getLong("coops.flush-interval", 100L)) * 50L;
+    }
+
+    @Override
+    public void onEnable() {
+        // Chunks loaded before the plugin enabled never fired a load event for us
+        for (final World world : plugin.getServer().getWorlds()) {
+            for (final Chunk chunk : world.getLoadedChunks()) {
+                Scheduler.run(CoopService.anchor(chunk), () -> this.hydrate(chunk));
+            }
+        }
+    }
+
+    @Override
+    public void onDisable() {
+        if (registry == null) return;
+
+        final List<Coop> coops = registry.getCoops();
+        registry.close();
+
+        // Storage shuts down after this service, so these saves still make it out
+        for (final Coop coop : coops) {
+            storageService.save(coop);
+            coop.release();
+        }
+    }
+
+    @EventHandler
+    public void onChunkLoad(@NotNull ChunkLoadEvent event) {
+        this.hydrate(event.getChunk());
+    }
+
+    @EventHandler
+    public void onChunkUnload(@NotNull ChunkUnloadEvent event) {
+        final Chunk chunk = event.getChunk();
+
+        // Anything still being read for this chunk is thrown away once it arrives
+        hydrating.remove(new ChunkPos(chunk.getWorld().getUID(), chunk.getChunkKey()));
+
+        for (final Coop coop : List.copyOf(registry.getCoops(chunk.getWorld(), chunk.getX(), chunk.getZ()))) {
+            storageService.save(coop);
+            registry.remove(coop);
+            coop.release();
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onPlayerInteract(@NotNull PlayerInteractEvent event) {
+        if (event.getAction() != Action.RIGHT_CLICK_BLOCK || event.getHand() != EquipmentSlot.HAND || event.getClickedBlock() == null) return;
+
+        final Coop coop = registry.get(event.getClickedBlock().getLocation());
+        if (coop == null) return;
+
+        final Player player = event.getPlayer();
+        final ItemStack item = event.getItem();
+        event.setCancelled(true);
+
+        if (player.isSneaking() && (item == null || item.isEmpty())) {
+            if (coop.getChickens().isEmpty()) return;
+
+            // Hand back the most recently added chicken
+            final Chicken chicken = coop.getChickens().getLast();
+            coop.removeChicken(chicken);
+            player.getInventory().setItemInMainHand(chicken.toItemStack());
+            chicken.release();
+            this.saveLater(coop);
+            return;
+        }
+
+        final Chicken chicken = item == null || item.isEmpty() ? null : Chicken.fromItemStack(item);
+        if (chicken == null) {
+            player.sendActionBar(Component.text("This coop holds " + coop.getChickens().size() + "/" + maxChickens + " chickens", NamedTextColor.YELLOW));
+            return;
+        }
+
+        if (coop.getChickens().size() >= maxChickens) {
+            chicken.release();
+            player.sendActionBar(Component.text("This coop is full", NamedTextColor.RED));
+            return;
+        }
+
+        coop.addChicken(chicken);
+        item.subtract();
+        this.saveLater(coop);
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onBlockBreak(@NotNull BlockBreakEvent event) {
+        final Coop coop = registry.get(event.getBlock().getLocation());
+        if (coop == null) return;
+
+        final Location drop = event.getBlock().getLocation().add(0.5, 0.5, 0.5);
+        event.setDropItems(false);
+
+        try {
+            drop.getWorld().dropItemNaturally(drop, customItemService.getCustomItem(CoopItem.NAME).getItemStack());
+        } catch (CustomItemException e) {
+            plugin.getLogger().log(Level.WARNING, "Unable to create a coop item", e);
+        }
+
+        for (final Chicken chicken : coop.getChickens()) drop.getWorld().dropItemNaturally(drop, chicken.toItemStack());
+        for (final ItemStack output : coop.takeOutput()) drop.getWorld().dropItemNaturally(drop, output);
+
+        registry.remove(coop);
+        coop.release();
+        storageService.delete(coop.getId());
+    }
+
+    /**
+     * Create a new, empty coop and start ticking it.
+     *
+     * @param owner The player owning the coop, if any.
+     * @param location The location of the coop block. Must be owned by the calling thread.
+     * @return The new {@link Coop}.
+     */
+    public @NotNull Coop createCoop(final @Nullable UUID owner, final @NotNull Location location) {
+        final Coop coop = new Coop(UUID.randomUUID(), owner, location);
+        this.register(coop);
+        storageService.save(coop);
+        return coop;
+    }
+
+    public CoopRegistry getRegistry() {
+        return registry;
+    }
+
+    private void register(final @NotNull Coop coop) {
+        registry.add(coop);
+        if (displays) coop.showDisplay();
+    }
+
+    private void saveLater(final @NotNull Coop coop) {
+        // Coops that were unloaded or broken meanwhile have already been saved or deleted
+        Scheduler.debounce(coop, coop.getAnchor(), SAVE_DELAY_TICKS, () -> {
+            if (!coop.isReleased()) storageService.save(coop);
+        });
+    }
+
+    private void hydrate(final @NotNull Chunk chunk) {
+        final ChunkPos pos = new ChunkPos(chunk.getWorld().getUID(), chunk.getChunkKey());
+        final Location anchor = CoopService.anchor(chunk);
+        final Object token = new Object();
+        hydrating.put(pos, token);
+
+        final CompletableFuture<List<Coop>> loaded = storageService.getStorage().loadChunk(pos.world(), pos.chunkKey())
+                .thenApply(stored -> stored.stream().map(Coop::fromData).filter(Objects::nonNull).toList());
+
+        Scheduler.thenRunOn(loaded, anchor, coops -> {
+            // The chunk unloaded, or unloaded and loaded again, while its coops were being read
+            if (!hydrating.remove(pos, token)) {
+                coops.forEach(Coop::release);
+                return;
+            }
+
+            coops.forEach(this::register);
+        }).exceptionally(throwable -> {
+            hydrating.remove(pos, token);
+            plugin.getLogger().log(Level.SEVERE, "Unable to load the coops of chunk " + chunk.getX() + ", " + chunk.getZ(), throwable);
+            return null;
+        });
+    }
+
+    private void tick(final @NotNull Coop coop) {
+        if (coop.tick(System.currentTimeMillis(), chickenService.getMaxCatchUpLays(), flushInterval, chickenService.getLayThrottle())) {
+            chickenService.getWorkQueue().submit(coop.getAnchor(), FLUSH_SITE, coop::flush);
+        }
+    }
+
+    private static @NotNull Location anchor(final @NotNull Chunk chunk) {
+        return new Location(chunk.getWorld(), chunk.getX() << 4, 0, chunk.getZ() << 4);
+    }
+
+    private record ChunkPos(UUID world, long chunkKey) { }
+
+}
\ No newline at end of file
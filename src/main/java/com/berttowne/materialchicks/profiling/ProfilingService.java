@@ -0,0 +1,45 @@
+package com.berttowne.materialchicks.profiling;
+
+import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.chickens.ChickenService;
+import com.berttowne.materialchicks.storage.StorageService;
+import com.berttowne.materialchicks.util.Scheduler;
+import com.berttowne.materialchicks.util.injection.Service;
+import com.google.auto.service.AutoService;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+
+@Singleton
+@AutoService(Service.class)
+@SuppressWarnings("UnstableApiUsage")
+public class ProfilingService implements Service {
+
+    private final MaterialChicks plugin;
+    private final StorageService storageService;
+    private final ChickenService chickenService;
+
+    @Inject
+    public ProfilingService(MaterialChicks plugin, StorageService storageService, ChickenService chickenService) {
+        this.plugin = plugin;
+        this.storageService = storageService;
+        this.chickenService = chickenService;
+    }
+
+    @Override
+    public void onEnable() {
+        // The profiler itself is configured in MaterialChicks#onEnable, before any service schedules a task
+        plugin.getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, event -> {
+            event.registrar().register("tasks", "List the scheduled tasks that take up the most time", new TasksCommand());
+            event.registrar().register("chickenstats", "Show what coop storage and the chicken throttles are doing",
+                    new StatsCommand(storageService, chickenService));
+        });
+    }
+
+    @Override
+    public void onDisable() {
+        // So that no timer or blocking work outlives the plugin
+        Scheduler.shutdown();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.berttowne.materialchicks.profiling;
+
+import com.berttowne.materialchicks.chickens.AiThrottle;
+import com.berttowne.materialchicks.chickens.ChickenService;
+import com.berttowne.materialchicks.chickens.LayThrottle;
+import com.berttowne.materialchicks.storage.CoopStorage;
+import com.berttowne.materialchicks.storage.SqlCoopStorage;
+import com.berttowne.materialchicks.storage.StorageService;
+import io.papermc.paper.command.brigadier.BasicCommand;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Command for showing what the plugin's background machinery is up to, such as how far coop storage lags behind
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class StatsCommand implements BasicCommand {
+
+    private static final int TOP_SECTIONS = 5;
+
+    private final StorageService storageService;
+    private final ChickenService chickenService;
+
+    public StatsCommand(StorageService storageService, ChickenService chickenService) {
+        this.storageService = storageService;
+        this.chickenService = chickenService;
+    }
+
+    @Override
+    public void execute(@NotNull CommandSourceStack commandSourceStack, String @NotNull [] args) {
+        final CommandSender sender = commandSourceStack.getSender();
+
+        sender.sendMessage(Component.text("Storage:").color(NamedTextColor.GREEN));
+
+        final CoopStorage storage = storageService.getStorage();
+        if (storage instanceof SqlCoopStorage sql) {
+            StatsCommand.line(sender, "Queued coops", String.valueOf(sql.getQueueDepth()));
+            StatsCommand.line(sender, "Flush time", String.format("%.1f ms last, %.1f ms average, %.1f ms max",
+                    sql.getLastFlushNanos() / 1_000_000.0, sql.getAverageFlushNanos() / 1_000_000.0, sql.getMaxFlushNanos() / 1_000_000.0));
+            StatsCommand.line(sender, "Rows written", String.valueOf(sql.getRowsWritten()));
+        } else {
+            StatsCommand.line(sender, "Backend", "log, written on every change");
+        }
+
+        // Every frozen chicken is one that skips its pathfinding and goal selection each tick
+        final AiThrottle aiThrottle = chickenService.getAiThrottle();
+        sender.sendMessage(Component.text("Chicken AI:").color(NamedTextColor.GREEN));
+        StatsCommand.line(sender, "Frozen", aiThrottle.getFrozenCount() + " of " + aiThrottle.getTrackedCount() + " chickens");
+
+        aiThrottle.getFrozenCounts().entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_SECTIONS)
+                .forEach(section -> StatsCommand.line(sender, "Section " + section.getKey(), section.getValue() + " frozen"));
+
+        final LayThrottle layThrottle = chickenService.getLayThrottle();
+        sender.sendMessage(Component.text("Lay throttle:").color(NamedTextColor.GREEN));
+        StatsCommand.line(sender, "Deferred", layThrottle.getDeferredByLoad() + " lays by load, "
+                + layThrottle.getDeferredByRate() + " by the item rate");
+
+        layThrottle.getTickMillis().entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_SECTIONS)
+                .forEach(section -> StatsCommand.line(sender, "Section " + section.getKey(), String.format("%.1f ms per tick", section.getValue())));
+    }
+
+    @Override
+    public @Nullable String permission() {
+        return "materialchicks.stats";
+    }
+
+    private static void line(final @NotNull CommandSender sender, final @NotNull String name, final @NotNull String value) {
+        sender.sendMessage(Component.text("  " + name + ": ").color(NamedTextColor.GRAY)
+                .append(Component.text(value).color(NamedTextColor.WHITE)));
+    }
+
+}
\ No newline at end of file
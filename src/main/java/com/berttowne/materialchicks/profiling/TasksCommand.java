@@ -0,0 +1,95 @@
+package com.berttowne.materialchicks.profiling;
+
+import com.berttowne.materialchicks.util.TaskProfiler;
+import io.papermc.paper.command.brigadier.BasicCommand;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Command for listing the scheduled tasks that take up the most time, as recorded by the {@link TaskProfiler}
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class TasksCommand implements BasicCommand {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    @Override
+    public void execute(@NotNull CommandSourceStack commandSourceStack, String @NotNull [] args) {
+        final CommandSender sender = commandSourceStack.getSender();
+
+        if (!TaskProfiler.isEnabled()) {
+            sender.sendMessage(Component.text("Task profiling is off, set profiling.enabled in the config and restart").color(NamedTextColor.RED));
+            return;
+        }
+
+        if (args.length == 1 && args[0].equalsIgnoreCase("reset")) {
+            TaskProfiler.reset();
+            sender.sendMessage(Component.text("Reset the recorded task times").color(NamedTextColor.GREEN));
+            return;
+        }
+
+        final boolean byP99 = args.length > 0 && args[0].equalsIgnoreCase("p99");
+        if (args.length > 0 && !byP99 && !args[0].equalsIgnoreCase("total")) {
+            sender.sendMessage(Component.text("Usage: /tasks [total|p99] [count] or /tasks reset").color(NamedTextColor.RED));
+            return;
+        }
+
+        int limit = DEFAULT_LIMIT;
+        if (args.length > 1) {
+            try {
+                limit = Math.max(1, Integer.parseInt(args[1]));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("Not a number: " + args[1]).color(NamedTextColor.RED));
+                return;
+            }
+        }
+
+        final Comparator<TaskProfiler.Summary> order = byP99 ? TaskProfiler.Summary.BY_P99 : TaskProfiler.Summary.BY_TOTAL;
+        final List<TaskProfiler.Summary> top = TaskProfiler.top(order, limit);
+
+        if (top.isEmpty()) {
+            sender.sendMessage(Component.text("No tasks have run yet").color(NamedTextColor.YELLOW));
+            return;
+        }
+
+        sender.sendMessage(Component.text("Top " + top.size() + " tasks by " + (byP99 ? "p99" : "total") + " time:").color(NamedTextColor.GREEN));
+
+        int rank = 1;
+        for (final TaskProfiler.Summary summary : top) {
+            sender.sendMessage(Component.text(rank++ + ". ").color(NamedTextColor.GRAY)
+                    .append(Component.text(summary.site()).color(NamedTextColor.WHITE))
+                    .append(Component.text(String.format(" %d runs, %.1f ms total, %.3f ms p99, %.3f ms max",
+                            summary.calls(), summary.totalNanos() / 1_000_000.0, summary.p99Nanos() / 1_000_000.0,
+                            summary.maxNanos() / 1_000_000.0)).color(NamedTextColor.GRAY)));
+        }
+    }
+
+    @Override
+    public @NotNull Collection<String> suggest(@NotNull CommandSourceStack commandSourceStack, String @NotNull [] args) {
+        final List<String> completions = new ArrayList<>();
+
+        if (args.length <= 1) {
+            final String partial = args.length == 0 ? "" : args[0].toLowerCase();
+            for (final String option : List.of("total", "p99", "reset")) {
+                if (option.startsWith(partial)) completions.add(option);
+            }
+        }
+
+        return completions;
+    }
+
+    @Override
+    public @Nullable String permission() {
+        return "materialchicks.tasks";
+    }
+
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.berttowne.materialchicks.resourcepack;
 
 import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.util.Scheduler;
 import com.berttowne.materialchicks.util.injection.Service;
 import com.google.auto.service.AutoService;
 import com.google.inject.Inject;
@@ -10,16 +11,21 @@ import net.kyori.adventure.resource.ResourcePackRequest;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URLConnection;
 import java.security.MessageDigest;
 import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 
 @Singleton
 @SuppressWarnings("unused")
@@ -29,7 +35,7 @@ public class ResourcePackService implements Service, Listener {
     private final MaterialChicks plugin;
     private final HexFormat hexFormat = HexFormat.of();
 
-    private ResourcePackInfo resourcePackInfo;
+    private volatile CompletableFuture<ResourcePackInfo> resourcePackInfo = new CompletableFuture<>();
 
     @Inject
     public ResourcePackService(MaterialChicks plugin) {
@@ -39,8 +45,8 @@ public class ResourcePackService implements Service, Listener {
     @Override
     public void onLoad() {
         // Load resource pack
-        String rpUrl = plugin.getConfig().getString("resource-pack.url");
-        String rpHash = plugin.getConfig().getString("resource-pack.hash");
+        final String rpUrl = plugin.getConfig().getString("resource-pack.url");
+        final String rpHash = plugin.getConfig().getString("resource-pack.hash");
 
         if (rpUrl == null) {
             plugin.getLogger().severe("** RESOURCE PACK URL NOT SET **");
@@ -48,29 +54,52 @@ public class ResourcePackService implements Service, Listener {
             return;
         }
 
-        if (plugin.getConfig().getBoolean("resource-pack.generate-hash") || rpHash == null) {
-            plugin.getLogger().info("Generating resource pack hash...");
+        if (!plugin.getConfig().getBoolean("resource-pack.generate-hash") && rpHash != null) {
+            this.resourcePackInfo = CompletableFuture.completedFuture(ResourcePackService.info(rpUrl, rpHash));
+            return;
+        }
 
-            try {
-                rpHash = this.getHashFromUrl(rpUrl);
-            } catch (Exception e) {
-                plugin.getLogger().severe("** UNABLE TO GENERATE RESOURCE PACK HASH AUTOMATICALLY **");
-                plugin.getServer().getPluginManager().disablePlugin(plugin);
+        plugin.getLogger().info("Generating resource pack hash...");
 
-                throw new RuntimeException(e);
-            }
-        }
+        // Downloaded on a virtual thread, rather than holding up the server's startup until the whole pack is read
+        this.resourcePackInfo = Scheduler.supplyAsync(() -> this.getHashFromUrl(rpUrl))
+                .thenApply(hash -> ResourcePackService.info(rpUrl, hash));
 
-        this.resourcePackInfo = ResourcePackInfo.resourcePackInfo()
-                .uri(URI.create(rpUrl))
-                .hash(rpHash)
-                .build();
+        resourcePackInfo.exceptionally(throwable -> {
+            // Interrupted as the plugin is disabled before the download finished
+            if (!plugin.isEnabled()) return null;
+
+            plugin.getLogger().log(Level.SEVERE, "** UNABLE TO GENERATE RESOURCE PACK HASH AUTOMATICALLY **", throwable);
+            Scheduler.run(() -> plugin.getServer().getPluginManager().disablePlugin(plugin));
+            return null;
+        });
     }
 
     @EventHandler
     public void onPlayerJoin(@NotNull PlayerJoinEvent event) {
-        event.getPlayer().sendResourcePacks(ResourcePackRequest.resourcePackRequest()
-                .packs(resourcePackInfo)
+        final ResourcePackInfo info = this.getResourcePack();
+        if (info != null) {
+            this.sendResourcePack(event.getPlayer(), info);
+            return;
+        }
+
+        // Players joining while the hash is still being worked out get the pack once it is
+        Scheduler.thenRunOn(resourcePackInfo, event.getPlayer(), pack -> this.sendResourcePack(event.getPlayer(), pack));
+    }
+
+    /**
+     * Get the resource pack players are sent when they join.
+     *
+     * @return The {@link ResourcePackInfo}, or {@code null} while its hash is still being generated.
+     */
+    public @Nullable ResourcePackInfo getResourcePack() {
+        final CompletableFuture<ResourcePackInfo> info = this.resourcePackInfo;
+        return info.state() == Future.State.SUCCESS ? info.resultNow() : null;
+    }
+
+    private void sendResourcePack(final @NotNull Player player, final @NotNull ResourcePackInfo info) {
+        player.sendResourcePacks(ResourcePackRequest.resourcePackRequest()
+                .packs(info)
                 .required(true)
                 .prompt(Component.text("\n")
                         .append(Component.text("RESOURCE PACK REQUIRED\n\n", NamedTextColor.RED, TextDecoration.BOLD))
@@ -80,10 +109,6 @@ public class ResourcePackService implements Service, Listener {
                 .build());
     }
 
-    public ResourcePackInfo getResourcePack() {
-        return resourcePackInfo;
-    }
-
     public String getHashFromUrl(String url) throws Exception {
         MessageDigest digest = MessageDigest.getInstance("SHA-1");
 
@@ -106,4 +131,11 @@ public class ResourcePackService implements Service, Listener {
         return hexFormat.formatHex(digest.digest());
     }
 
+    private static @NotNull ResourcePackInfo info(final @NotNull String url, final @NotNull String hash) {
+        return ResourcePackInfo.resourcePackInfo()
+                .uri(URI.create(url))
+                .hash(hash)
+                .build();
+    }
+
 }
\ No newline at end of file
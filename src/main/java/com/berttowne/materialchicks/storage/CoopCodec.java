@@ -0,0 +1,139 @@
+package com.berttowne.materialchicks.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Compact binary encoding of {@link CoopData}. Chicken type names are written once per coop in a palette and every
+ * chicken refers to its type by palette index.
+ */
+public final class CoopCodec {
+
+    private static final byte VERSION = 2;
+
+    private CoopCodec() { }
+
+    /**
+     * Encode a coop into a byte array.
+     *
+     * @param coop The coop to encode.
+     * @return The encoded coop.
+     */
+    public static byte @NotNull [] encode(final @NotNull CoopData coop) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + coop.chickens().size() * 14);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CoopCodec.write(out, coop);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a coop from a byte array created by {@link #encode(CoopData)}.
+     *
+     * @param bytes The encoded coop.
+     * @return The decoded coop.
+     */
+    public static @NotNull CoopData decode(final byte @NotNull [] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return CoopCodec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a coop to a stream.
+     *
+     * @param out The stream to write to.
+     * @param coop The coop to write.
+     * @throws IOException If the stream fails.
+     */
+    public static void write(final @NotNull DataOutput out, final @NotNull CoopData coop) throws IOException {
+        out.writeByte(VERSION);
+        CoopCodec.writeUUID(out, coop.id());
+        out.writeBoolean(coop.owner() != null);
+        if (coop.owner() != null) CoopCodec.writeUUID(out, coop.owner());
+        CoopCodec.writeUUID(out, coop.world());
+        out.writeInt(coop.x());
+        out.writeInt(coop.y());
+        out.writeInt(coop.z());
+
+        final Map<String, Integer> palette = new LinkedHashMap<>();
+        for (final CoopData.ChickenData chicken : coop.chickens()) {
+            palette.putIfAbsent(chicken.type(), palette.size());
+        }
+
+        out.writeShort(palette.size());
+        for (final String type : palette.keySet()) {
+            out.writeUTF(type);
+        }
+
+        out.writeInt(coop.chickens().size());
+        for (final CoopData.ChickenData chicken : coop.chickens()) {
+            out.writeShort(palette.get(chicken.type()));
+            out.writeInt(chicken.stats());
+            out.writeLong(chicken.nextLay());
+        }
+
+        out.writeShort(coop.output().size());
+        for (final Map.Entry<String, Integer> entry : coop.output().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    /**
+     * Read a coop from a stream.
+     *
+     * @param in The stream to read from.
+     * @return The coop that was read.
+     * @throws IOException If the stream fails or holds an unknown version.
+     */
+    public static @NotNull CoopData read(final @NotNull DataInput in) throws IOException {
+        final byte version = in.readByte();
+        if (version < 1 || version > VERSION) throw new IOException("Unknown coop data version " + version);
+
+        final UUID id = CoopCodec.readUUID(in);
+        final UUID owner = in.readBoolean() ? CoopCodec.readUUID(in) : null;
+        final UUID world = CoopCodec.readUUID(in);
+        final int x = in.readInt();
+        final int y = in.readInt();
+        final int z = in.readInt();
+
+        final String[] palette = new String[in.readUnsignedShort()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = in.readUTF();
+        }
+
+        final int count = in.readInt();
+        final List<CoopData.ChickenData> chickens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chickens.add(new CoopData.ChickenData(palette[in.readUnsignedShort()], in.readInt(), in.readLong()));
+        }
+
+        // Coops written before version 2 held no output
+        final Map<String, Integer> output = new HashMap<>();
+        final int materials = version >= 2 ? in.readUnsignedShort() : 0;
+        for (int i = 0; i < materials; i++) {
+            output.put(in.readUTF(), in.readInt());
+        }
+
+        return new CoopData(id, owner, world, x, y, z, List.copyOf(chickens), Map.copyOf(output));
+    }
+
+    private static void writeUUID(final @NotNull DataOutput out, final @NotNull UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static @NotNull UUID readUUID(final @NotNull DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.berttowne.materialchicks.storage;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a coop and the chickens inside it, as handed to and from a {@link CoopStorage}.
+ *
+ * @param id The unique id of the coop.
+ * @param owner The player owning the coop, if any.
+ * @param world The world the coop is placed in.
+ * @param x The block x coordinate of the coop.
+ * @param y The block y coordinate of the coop.
+ * @param z The block z coordinate of the coop.
+ * @param chickens The chickens inside the coop.
+ * @param output The laid items the coop is holding on to, by material key (e.g. {@code minecraft:diamond}).
+ */
+public record CoopData(@NotNull UUID id, @Nullable UUID owner, @NotNull UUID world, int x, int y, int z,
+                       @NotNull List<ChickenData> chickens, @NotNull Map<String, Integer> output) {
+
+    /**
+     * Get the key of the chunk this coop is placed in, as used by {@link org.bukkit.Chunk#getChunkKey(int, int)}.
+     *
+     * @return The chunk key of the coop.
+     */
+    public long chunkKey() {
+        return org.bukkit.Chunk.getChunkKey(x >> 4, z >> 4);
+    }
+
+    /**
+     * Snapshot of a single chicken inside a coop.
+     *
+     * @param type The name of the chicken type, e.g. {@code diamond}.
+     * @param stats The growth, gain and strength packed with
+     *              {@link com.berttowne.materialchicks.chickens.ChickenStore#packStats(int, int, int)}.
+     * @param nextLay The next lay time in epoch milliseconds.
+     */
+    public record ChickenData(@NotNull String type, int stats, long nextLay) { }
+
+}
\ No newline at end of file
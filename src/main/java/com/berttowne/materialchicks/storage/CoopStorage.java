@@ -0,0 +1,61 @@
+package com.berttowne.materialchicks.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Durable storage for coops and the chickens inside them.
+ * <p>
+ * Implementations must never block the calling thread on I/O: writes are queued and applied in the background, and
+ * reads complete their futures off the calling thread.
+ */
+public interface CoopStorage extends AutoCloseable {
+
+    /**
+     * Load every stored coop.
+     *
+     * @return A future completed with all stored coops.
+     */
+    @NotNull CompletableFuture<Collection<CoopData>> loadAll();
+
+    /**
+     * Load every stored coop owned by a player.
+     *
+     * @param owner The unique id of the player.
+     * @return A future completed with the coops owned by the player.
+     */
+    @NotNull CompletableFuture<Collection<CoopData>> loadByOwner(@NotNull UUID owner);
+
+    /**
+     * Load every stored coop placed in a chunk. The result reflects every write queued before this call.
+     *
+     * @param world The unique id of the world of the chunk.
+     * @param chunkKey The key of the chunk, as used by {@link org.bukkit.Chunk#getChunkKey(int, int)}.
+     * @return A future completed off the calling thread with the coops in the chunk.
+     */
+    @NotNull CompletableFuture<Collection<CoopData>> loadChunk(@NotNull UUID world, long chunkKey);
+
+    /**
+     * Queue a coop to be written, replacing any previously stored state for the same coop id.
+     *
+     * @param coop The coop to store.
+     */
+    void save(@NotNull CoopData coop);
+
+    /**
+     * Queue a coop to be deleted.
+     *
+     * @param id The id of the coop to delete.
+     */
+    void delete(@NotNull UUID id);
+
+    /**
+     * Flush every queued write and release the storage. The storage must not be used afterwards.
+     */
+    @Override
+    void close();
+
+}
\ No newline at end of file
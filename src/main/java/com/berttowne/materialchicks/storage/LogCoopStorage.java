@@ -0,0 +1,447 @@
+package com.berttowne.materialchicks.storage;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * {@link CoopStorage} backed by an append-only log written through a memory-mapped file, periodically compacted into
+ * a snapshot. Meant for single-server deployments that want crash-safe durability without running a database.
+ * <p>
+ * Every change is encoded on the calling thread and handed to a dedicated writer thread, which appends it to the log
+ * and forces the mapped pages to disk after each batch. Records are framed as
+ * {@code [length][generation][op][id][payload][crc32]}; on startup the snapshot is loaded and the log replayed until
+ * the first record that is torn, fails its checksum or belongs to an older generation. Compaction writes the live coops
+ * to a new snapshot and bumps the generation, which invalidates the whole log without having to truncate it.
+ * <p>
+ * Encoded coops are never kept in memory. The writer thread only keeps, per chunk and per owner, where the latest
+ * record of every coop in it starts in either the snapshot or the mapped log, and reads and decodes a coop from there
+ * when it is loaded.
+ */
+public class LogCoopStorage implements CoopStorage {
+
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_LOAD = 3;
+    private static final byte OP_CLOSE = 4;
+    private static final byte OP_LOAD_CHUNK = 5;
+    private static final byte OP_LOAD_OWNER = 6;
+
+    private static final int RECORD_OVERHEAD = Integer.BYTES * 3 + 1 + Long.BYTES * 2;
+    private static final int PAYLOAD_OFFSET = Integer.BYTES * 2 + 1 + Long.BYTES * 2;
+    private static final int SNAPSHOT_HEADER = Integer.BYTES * 2;
+    private static final int SNAPSHOT_ENTRY_HEADER = Long.BYTES * 2 + Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 4 << 20;
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final long compactThreshold;
+    private final Logger logger;
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private volatile boolean failed;
+
+    // Only touched by the writer thread
+    private Map<UUID, Slot> coops = new HashMap<>();
+    private final Map<ChunkPos, Set<UUID>> chunks = new HashMap<>();
+    private final Map<UUID, Set<UUID>> owners = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private FileChannel snapshot;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int generation;
+
+    /**
+     * Open the storage, recovering any existing snapshot and log in the background.
+     *
+     * @param folder The folder holding the snapshot and log files.
+     * @param compactThreshold The log size in bytes after which the log is compacted into a new snapshot.
+     * @param logger The logger to report storage failures to.
+     */
+    public LogCoopStorage(final @NotNull Path folder, final long compactThreshold, final @NotNull Logger logger) {
+        this.snapshotFile = folder.resolve("coops.snapshot");
+        this.logFile = folder.resolve("coops.log");
+        this.compactThreshold = compactThreshold;
+        this.logger = logger;
+        this.writer = Thread.ofPlatform().name("MaterialChicks Storage").daemon(true).start(this::run);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<CoopData>> loadAll() {
+        if (failed) return CompletableFuture.failedFuture(new IOException("Coop storage has failed"));
+
+        final CompletableFuture<Collection<CoopData>> future = new CompletableFuture<>();
+        requests.add(new Request(OP_LOAD, null, null, null, null, future));
+        return future;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<CoopData>> loadByOwner(final @NotNull UUID owner) {
+        if (failed) return CompletableFuture.failedFuture(new IOException("Coop storage has failed"));
+
+        final CompletableFuture<Collection<CoopData>> future = new CompletableFuture<>();
+        requests.add(new Request(OP_LOAD_OWNER, null, owner, null, null, future));
+        return future;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<CoopData>> loadChunk(final @NotNull UUID world, final long chunkKey) {
+        if (failed) return CompletableFuture.failedFuture(new IOException("Coop storage has failed"));
+
+        final CompletableFuture<Collection<CoopData>> future = new CompletableFuture<>();
+        requests.add(new Request(OP_LOAD_CHUNK, null, null, null, new ChunkPos(world, chunkKey), future));
+        return future;
+    }
+
+    @Override
+    public void save(final @NotNull CoopData coop) {
+        if (failed) return;
+
+        requests.add(new Request(OP_SAVE, coop.id(), coop.owner(), CoopCodec.encode(coop), ChunkPos.of(coop), null));
+    }
+
+    @Override
+    public void delete(final @NotNull UUID id) {
+        if (failed) return;
+
+        requests.add(new Request(OP_DELETE, id, null, null, null, null));
+    }
+
+    @Override
+    public void close() {
+        requests.add(new Request(OP_CLOSE, null, null, null, null, null));
+
+        try {
+            writer.join(30_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            Files.createDirectories(logFile.getParent());
+            this.recover();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Unable to recover coop storage, coops will not be saved!", e);
+            this.failPending(e);
+            return;
+        }
+
+        try {
+            while (true) {
+                Request request = requests.take();
+                boolean written = false;
+
+                do {
+                    if (request.op() == OP_CLOSE) {
+                        if (written) buffer.force();
+                        channel.close();
+                        if (snapshot != null) snapshot.close();
+                        return;
+                    }
+
+                    written |= this.apply(request);
+                } while ((request = requests.poll()) != null);
+
+                if (written) buffer.force();
+                if (position >= compactThreshold) this.compact();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | UncheckedIOException e) {
+            logger.log(Level.SEVERE, "Coop storage failed, coops will no longer be saved!", e);
+            this.failPending(e);
+        }
+    }
+
+    private boolean apply(final @NotNull Request request) throws IOException {
+        switch (request.op()) {
+            case OP_SAVE -> {
+                final int offset = this.append(OP_SAVE, request.id(), request.payload());
+                this.index(request.id(), new Slot(request.chunk(), request.owner(), false, offset, request.payload().length));
+                return true;
+            }
+            case OP_DELETE -> {
+                final Slot slot = coops.remove(request.id());
+                if (slot == null) return false;
+
+                this.append(OP_DELETE, request.id(), new byte[0]);
+                this.unindex(request.id(), slot);
+                return true;
+            }
+            case OP_LOAD_CHUNK -> {
+                this.load(chunks.getOrDefault(request.chunk(), Set.of()), request.future());
+                return false;
+            }
+            case OP_LOAD_OWNER -> {
+                this.load(owners.getOrDefault(request.owner(), Set.of()), request.future());
+                return false;
+            }
+            case OP_LOAD -> {
+                this.load(coops.keySet(), request.future());
+                return false;
+            }
+            default -> throw new IllegalStateException("Unknown storage op " + request.op());
+        }
+    }
+
+    private void load(final @NotNull Collection<UUID> ids, final @NotNull CompletableFuture<Collection<CoopData>> future) {
+        try {
+            final List<CoopData> loaded = new ArrayList<>(ids.size());
+            for (final UUID id : ids) loaded.add(CoopCodec.decode(this.read(coops.get(id))));
+
+            future.complete(loaded);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Append a record to the log.
+     *
+     * @return The position of the record's payload in the log.
+     */
+    private int append(final byte op, final @NotNull UUID id, final byte @NotNull [] payload) throws IOException {
+        final int length = Integer.BYTES + 1 + Long.BYTES * 2 + payload.length;
+        final int recordSize = RECORD_OVERHEAD + payload.length;
+
+        // Always keep room for a zeroed length after the record so replay knows where the log ends
+        if ((long) position + recordSize + Integer.BYTES > buffer.capacity()) {
+            this.remap(Math.max((long) buffer.capacity() * 2, (long) position + recordSize + Integer.BYTES));
+        }
+
+        buffer.position(position + Integer.BYTES);
+        buffer.putInt(generation);
+        buffer.put(op);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.put(payload);
+
+        crc.reset();
+        crc.update(buffer.slice(position + Integer.BYTES, length));
+        buffer.putInt((int) crc.getValue());
+
+        buffer.putInt(position + recordSize, 0);
+        buffer.putInt(position, length);
+
+        final int payloadOffset = position + PAYLOAD_OFFSET;
+        position += recordSize;
+        return payloadOffset;
+    }
+
+    private byte @NotNull [] read(final @NotNull Slot slot) throws IOException {
+        final byte[] payload = new byte[slot.length()];
+
+        if (!slot.snapshot()) {
+            buffer.get((int) slot.offset(), payload);
+            return payload;
+        }
+
+        final ByteBuffer target = ByteBuffer.wrap(payload);
+        while (target.hasRemaining()) {
+            if (snapshot.read(target, slot.offset() + target.position()) < 0) throw new EOFException("Coop snapshot was truncated");
+        }
+
+        return payload;
+    }
+
+    private void recover() throws IOException {
+        // Only where every coop was last written is remembered, its chunk and owner are filled in once the log is replayed
+        final Map<UUID, Slot> recovered = new HashMap<>();
+
+        if (Files.exists(snapshotFile)) {
+            this.snapshot = FileChannel.open(snapshotFile, StandardOpenOption.READ);
+
+            // The stream moves the channel's own position, which the positional reads later on ignore
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(snapshot)));
+            this.generation = in.readInt();
+
+            long offset = SNAPSHOT_HEADER;
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final UUID id = new UUID(in.readLong(), in.readLong());
+                final int length = in.readInt();
+                in.skipNBytes(length);
+
+                recovered.put(id, new Slot(null, null, true, offset + SNAPSHOT_ENTRY_HEADER, length));
+                offset += SNAPSHOT_ENTRY_HEADER + length;
+            }
+        }
+
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, channel.size()));
+
+        int replayed = 0;
+        while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+            final int length = buffer.getInt(position);
+            if (length < Integer.BYTES + 1 + Long.BYTES * 2 || position + Integer.BYTES * 2L + length > buffer.capacity()) break;
+
+            crc.reset();
+            crc.update(buffer.slice(position + Integer.BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES + length)) break;
+
+            buffer.position(position + Integer.BYTES);
+            if (buffer.getInt() != generation) break;
+
+            final byte op = buffer.get();
+            final UUID id = new UUID(buffer.getLong(), buffer.getLong());
+
+            if (op == OP_SAVE) {
+                recovered.put(id, new Slot(null, null, false, position + PAYLOAD_OFFSET, length - (Integer.BYTES + 1 + Long.BYTES * 2)));
+            } else if (op == OP_DELETE) {
+                recovered.remove(id);
+            }
+
+            position += Integer.BYTES * 2 + length;
+            replayed++;
+        }
+
+        // Cut off whatever torn record may follow the last valid one
+        if (position + Integer.BYTES <= buffer.capacity()) buffer.putInt(position, 0);
+
+        // Index every coop by chunk and owner so either can load its coops without decoding the rest
+        for (final Map.Entry<UUID, Slot> entry : recovered.entrySet()) {
+            final Slot slot = entry.getValue();
+
+            try {
+                this.index(entry.getKey(), slot.withCoop(CoopCodec.decode(this.read(slot))));
+            } catch (IOException | RuntimeException e) {
+                // Still kept, so that compaction does not throw it away
+                logger.log(Level.WARNING, "Unable to decode stored coop " + entry.getKey() + ", it will not be loaded", e);
+                coops.put(entry.getKey(), slot);
+            }
+        }
+
+        logger.info("Recovered " + coops.size() + " coops from storage (" + replayed + " log records replayed)");
+    }
+
+    private void compact() throws IOException {
+        final Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        final int nextGeneration = generation + 1;
+        final Map<UUID, Slot> compacted = HashMap.newHashMap(coops.size());
+
+        try (FileChannel snapshotChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(snapshotChannel)))) {
+            out.writeInt(nextGeneration);
+            out.writeInt(coops.size());
+
+            long offset = SNAPSHOT_HEADER;
+            for (final Map.Entry<UUID, Slot> entry : coops.entrySet()) {
+                final Slot slot = entry.getValue();
+
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(slot.length());
+                out.write(this.read(slot));
+
+                compacted.put(entry.getKey(), new Slot(slot.chunk(), slot.owner(), true, offset + SNAPSHOT_ENTRY_HEADER, slot.length()));
+                offset += SNAPSHOT_ENTRY_HEADER + slot.length();
+            }
+
+            out.flush();
+            snapshotChannel.force(true);
+        }
+
+        // The old snapshot is still open, which is fine as it is replaced by a move rather than written to
+        Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        if (snapshot != null) snapshot.close();
+        this.snapshot = FileChannel.open(snapshotFile, StandardOpenOption.READ);
+        this.coops = compacted;
+
+        // Records of the old generation are now ignored on replay, so the log can simply be rewritten from the start
+        this.generation = nextGeneration;
+        this.position = 0;
+        buffer.putInt(0, 0);
+        buffer.force();
+    }
+
+    private void remap(final long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) throw new IOException("Coop log exceeded " + Integer.MAX_VALUE + " bytes");
+
+        buffer.force();
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void index(final @NotNull UUID id, final @NotNull Slot slot) {
+        final Slot previous = coops.put(id, slot);
+        if (previous != null && Objects.equals(slot.chunk(), previous.chunk()) && Objects.equals(slot.owner(), previous.owner())) return;
+
+        if (previous != null) this.unindex(id, previous);
+        LogCoopStorage.add(chunks, slot.chunk(), id);
+        LogCoopStorage.add(owners, slot.owner(), id);
+    }
+
+    private void unindex(final @NotNull UUID id, final @NotNull Slot slot) {
+        LogCoopStorage.remove(chunks, slot.chunk(), id);
+        LogCoopStorage.remove(owners, slot.owner(), id);
+    }
+
+    private static <K> void add(final @NotNull Map<K, Set<UUID>> index, final @Nullable K key, final @NotNull UUID id) {
+        if (key != null) index.computeIfAbsent(key, ignored -> new HashSet<>()).add(id);
+    }
+
+    private static <K> void remove(final @NotNull Map<K, Set<UUID>> index, final @Nullable K key, final @NotNull UUID id) {
+        if (key == null) return;
+
+        final Set<UUID> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) index.remove(key);
+    }
+
+    private void failPending(final @NotNull Exception cause) {
+        this.failed = true;
+
+        Request request;
+        while ((request = requests.poll()) != null) {
+            if (request.future() != null) request.future().completeExceptionally(cause);
+        }
+    }
+
+    private record Request(byte op, @Nullable UUID id, @Nullable UUID owner, byte @Nullable [] payload, @Nullable ChunkPos chunk,
+                           @Nullable CompletableFuture<Collection<CoopData>> future) { }
+
+    /**
+     * Where the latest record of a coop is stored.
+     *
+     * @param chunk The chunk the coop is in, or {@code null} if it could not be decoded.
+     * @param owner The owner of the coop, or {@code null} if it has none or could not be decoded.
+     * @param snapshot Whether the record is in the snapshot, as opposed to the log.
+     * @param offset The position of the encoded coop in its file.
+     * @param length The length of the encoded coop.
+     */
+    private record Slot(@Nullable ChunkPos chunk, @Nullable UUID owner, boolean snapshot, long offset, int length) {
+
+        private @NotNull Slot withCoop(final @NotNull CoopData coop) {
+            return new Slot(ChunkPos.of(coop), coop.owner(), snapshot, offset, length);
+        }
+
+    }
+
+    private record ChunkPos(@NotNull UUID world, long chunkKey) {
+
+        private static @NotNull ChunkPos of(final @NotNull CoopData coop) {
+            return new ChunkPos(coop.world(), coop.chunkKey());
+        }
+
+    }
+
+}
\ No newline at end of file
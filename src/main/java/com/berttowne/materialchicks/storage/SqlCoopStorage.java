@@ -0,0 +1,427 @@
+package com.berttowne.materialchicks.storage;
+
+import com.google.common.collect.Maps;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link CoopStorage} backed by a MySQL or MariaDB database, for networks that share coop state between servers.
+ * <p>
+ * Saves are coalesced per coop in a dirty map, so a coop changed many times between two flushes is only written once.
+ * A dedicated writer thread drains the map every flush interval and writes everything in a single transaction of
+ * batched {@code INSERT ... ON DUPLICATE KEY UPDATE} statements. Reads run on a small separate pool so they never
+ * queue behind writes.
+ */
+public class SqlCoopStorage implements CoopStorage {
+
+    private static final CoopData DELETED = new CoopData(new UUID(0L, 0L), null, new UUID(0L, 0L), 0, 0, 0, List.of(), Map.of());
+
+    private static final String CREATE_COOPS = """
+            CREATE TABLE IF NOT EXISTS materialchicks_coops (
+                id BINARY(16) NOT NULL PRIMARY KEY,
+                owner BINARY(16) NULL,
+                world BINARY(16) NOT NULL,
+                x INT NOT NULL,
+                y INT NOT NULL,
+                z INT NOT NULL,
+                chunk_key BIGINT NOT NULL,
+                INDEX materialchicks_coops_owner (owner),
+                INDEX materialchicks_coops_chunk (world, chunk_key)
+            )""";
+    private static final String CREATE_CHICKENS = """
+            CREATE TABLE IF NOT EXISTS materialchicks_chickens (
+                coop_id BINARY(16) NOT NULL,
+                slot INT NOT NULL,
+                type VARCHAR(64) NOT NULL,
+                stats INT NOT NULL,
+                next_lay BIGINT NOT NULL,
+                PRIMARY KEY (coop_id, slot)
+            )""";
+    private static final String CREATE_OUTPUT = """
+            CREATE TABLE IF NOT EXISTS materialchicks_coop_output (
+                coop_id BINARY(16) NOT NULL,
+                material VARCHAR(64) NOT NULL,
+                amount INT NOT NULL,
+                PRIMARY KEY (coop_id, material)
+            )""";
+
+    private static final String UPSERT_COOP = "INSERT INTO materialchicks_coops (id, owner, world, x, y, z, chunk_key) VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE owner = VALUES(owner), world = VALUES(world), x = VALUES(x), y = VALUES(y), z = VALUES(z), chunk_key = VALUES(chunk_key)";
+    private static final String UPSERT_CHICKEN = "INSERT INTO materialchicks_chickens (coop_id, slot, type, stats, next_lay) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE type = VALUES(type), stats = VALUES(stats), next_lay = VALUES(next_lay)";
+    private static final String TRIM_CHICKENS = "DELETE FROM materialchicks_chickens WHERE coop_id = ? AND slot >= ?";
+    private static final String DELETE_COOP = "DELETE FROM materialchicks_coops WHERE id = ?";
+    private static final String INSERT_OUTPUT = "INSERT INTO materialchicks_coop_output (coop_id, material, amount) VALUES (?, ?, ?)";
+    private static final String CLEAR_OUTPUT = "DELETE FROM materialchicks_coop_output WHERE coop_id = ?";
+
+    private static final String SELECT_COOPS = "SELECT c.id, c.owner, c.world, c.x, c.y, c.z, ch.slot, ch.type, ch.stats, ch.next_lay "
+            + "FROM materialchicks_coops c LEFT JOIN materialchicks_chickens ch ON ch.coop_id = c.id";
+    private static final String SELECT_OUTPUT = "SELECT o.coop_id, o.material, o.amount "
+            + "FROM materialchicks_coops c JOIN materialchicks_coop_output o ON o.coop_id = c.id";
+
+    private final HikariDataSource dataSource;
+    private final ExecutorService readers;
+    private final Thread writer;
+    private final long flushIntervalNanos;
+    private final Logger logger;
+
+    private final Map<UUID, CoopData> dirty = Maps.newConcurrentMap();
+    private final Map<UUID, CoopData> flushing = Maps.newConcurrentMap();
+    private final Object handoff = new Object();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Connect to the database and create the tables if they do not exist yet.
+     *
+     * @param config The Hikari configuration holding the JDBC url and credentials.
+     * @param flushIntervalMillis How often dirty coops are flushed to the database, in milliseconds.
+     * @param logger The logger to report storage failures to.
+     * @throws SQLException If the tables cannot be created.
+     */
+    public SqlCoopStorage(final @NotNull HikariConfig config, final long flushIntervalMillis, final @NotNull Logger logger) throws SQLException {
+        config.setPoolName("MaterialChicks");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("useBulkStmts", "true");
+
+        this.dataSource = new HikariDataSource(config);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.logger = logger;
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_COOPS);
+            statement.execute(CREATE_CHICKENS);
+            statement.execute(CREATE_OUTPUT);
+        }
+
+        this.readers = Executors.newFixedThreadPool(Math.max(1, config.getMaximumPoolSize() - 1),
+                Thread.ofPlatform().name("MaterialChicks SQL Reader-", 0).daemon(true).factory());
+        this.writer = Thread.ofPlatform().name("MaterialChicks SQL Writer").daemon(true).start(this::run);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<CoopData>> loadAll() {
+        final Map<UUID, CoopData> pending = this.pending();
+        return CompletableFuture.supplyAsync(() -> this.select("", pending, coop -> true), readers);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<CoopData>> loadByOwner(final @NotNull UUID owner) {
+        final Map<UUID, CoopData> pending = this.pending();
+        return CompletableFuture.supplyAsync(() -> this.select(" WHERE c.owner = ?", pending,
+                coop -> owner.equals(coop.owner()), SqlCoopStorage.toBytes(owner)), readers);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<CoopData>> loadChunk(final @NotNull UUID world, final long chunkKey) {
+        final Map<UUID, CoopData> pending = this.pending();
+        return CompletableFuture.supplyAsync(() -> this.select(" WHERE c.world = ? AND c.chunk_key = ?", pending,
+                coop -> world.equals(coop.world()) && coop.chunkKey() == chunkKey,
+                SqlCoopStorage.toBytes(world), chunkKey), readers);
+    }
+
+    @Override
+    public void save(final @NotNull CoopData coop) {
+        dirty.put(coop.id(), coop);
+    }
+
+    @Override
+    public void delete(final @NotNull UUID id) {
+        dirty.put(id, DELETED);
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join(30_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        readers.shutdown();
+        dataSource.close();
+    }
+
+    /**
+     * Get the number of coops waiting to be flushed to the database.
+     *
+     * @return The number of dirty coops.
+     */
+    public int getQueueDepth() {
+        return dirty.size();
+    }
+
+    /**
+     * Get how long the most recent flush took.
+     *
+     * @return The duration of the last flush in nanoseconds.
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos.get();
+    }
+
+    /**
+     * Get the longest a single flush has taken.
+     *
+     * @return The duration of the slowest flush in nanoseconds.
+     */
+    public long getMaxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    /**
+     * Get the average time a flush takes.
+     *
+     * @return The average flush duration in nanoseconds.
+     */
+    public long getAverageFlushNanos() {
+        final long count = flushes.get();
+        return count == 0 ? 0 : totalFlushNanos.get() / count;
+    }
+
+    /**
+     * Get the total number of coop and chicken rows written since the storage was opened.
+     *
+     * @return The number of rows written.
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    private void run() {
+        while (!closed) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            this.flush();
+        }
+
+        // Drain whatever was queued before the storage closed
+        this.flush();
+    }
+
+    private void flush() {
+        if (dirty.isEmpty()) return;
+
+        final List<CoopData> saves = new ArrayList<>();
+        final List<UUID> deletes = new ArrayList<>();
+
+        // Writes stay visible to reads in the flushing map until they are committed
+        synchronized (handoff) {
+            for (final UUID id : dirty.keySet()) {
+                final CoopData coop = dirty.get(id);
+                if (coop == null) continue;
+
+                flushing.put(id, coop);
+                dirty.remove(id, coop);
+
+                if (coop == DELETED) deletes.add(id);
+                else saves.add(coop);
+            }
+        }
+
+        final long start = System.nanoTime();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                final long rows = this.write(connection, saves, deletes);
+                connection.commit();
+                rowsWritten.addAndGet(rows);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Unable to flush " + (saves.size() + deletes.size()) + " coops, retrying next flush", e);
+
+            // Put the failed writes back unless they were superseded in the meantime
+            saves.forEach(coop -> dirty.putIfAbsent(coop.id(), coop));
+            deletes.forEach(id -> dirty.putIfAbsent(id, DELETED));
+            flushing.clear();
+            return;
+        }
+
+        flushing.clear();
+
+        final long elapsed = System.nanoTime() - start;
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        totalFlushNanos.addAndGet(elapsed);
+        flushes.incrementAndGet();
+    }
+
+    private long write(final @NotNull Connection connection, final @NotNull List<CoopData> saves, final @NotNull List<UUID> deletes) throws SQLException {
+        long rows = 0;
+
+        try (PreparedStatement upsertCoop = connection.prepareStatement(UPSERT_COOP);
+             PreparedStatement upsertChicken = connection.prepareStatement(UPSERT_CHICKEN);
+             PreparedStatement trimChickens = connection.prepareStatement(TRIM_CHICKENS);
+             PreparedStatement deleteCoop = connection.prepareStatement(DELETE_COOP);
+             PreparedStatement insertOutput = connection.prepareStatement(INSERT_OUTPUT);
+             PreparedStatement clearOutput = connection.prepareStatement(CLEAR_OUTPUT)) {
+
+            for (final CoopData coop : saves) {
+                final byte[] id = SqlCoopStorage.toBytes(coop.id());
+
+                upsertCoop.setBytes(1, id);
+                if (coop.owner() == null) upsertCoop.setNull(2, Types.BINARY);
+                else upsertCoop.setBytes(2, SqlCoopStorage.toBytes(coop.owner()));
+                upsertCoop.setBytes(3, SqlCoopStorage.toBytes(coop.world()));
+                upsertCoop.setInt(4, coop.x());
+                upsertCoop.setInt(5, coop.y());
+                upsertCoop.setInt(6, coop.z());
+                upsertCoop.setLong(7, coop.chunkKey());
+                upsertCoop.addBatch();
+
+                final List<CoopData.ChickenData> chickens = coop.chickens();
+                for (int slot = 0; slot < chickens.size(); slot++) {
+                    final CoopData.ChickenData chicken = chickens.get(slot);
+
+                    upsertChicken.setBytes(1, id);
+                    upsertChicken.setInt(2, slot);
+                    upsertChicken.setString(3, chicken.type());
+                    upsertChicken.setInt(4, chicken.stats());
+                    upsertChicken.setLong(5, chicken.nextLay());
+                    upsertChicken.addBatch();
+                }
+
+                trimChickens.setBytes(1, id);
+                trimChickens.setInt(2, chickens.size());
+                trimChickens.addBatch();
+
+                clearOutput.setBytes(1, id);
+                clearOutput.addBatch();
+
+                for (final Map.Entry<String, Integer> output : coop.output().entrySet()) {
+                    insertOutput.setBytes(1, id);
+                    insertOutput.setString(2, output.getKey());
+                    insertOutput.setInt(3, output.getValue());
+                    insertOutput.addBatch();
+                }
+
+                rows += 1 + chickens.size() + coop.output().size();
+            }
+
+            for (final UUID coopId : deletes) {
+                final byte[] id = SqlCoopStorage.toBytes(coopId);
+
+                deleteCoop.setBytes(1, id);
+                deleteCoop.addBatch();
+                trimChickens.setBytes(1, id);
+                trimChickens.setInt(2, 0);
+                trimChickens.addBatch();
+                clearOutput.setBytes(1, id);
+                clearOutput.addBatch();
+            }
+
+            upsertCoop.executeBatch();
+            upsertChicken.executeBatch();
+            trimChickens.executeBatch();
+            clearOutput.executeBatch();
+            insertOutput.executeBatch();
+            deleteCoop.executeBatch();
+        }
+
+        return rows;
+    }
+
+    /**
+     * Snapshot every write that is queued or being flushed, so a read issued now sees them even before they reach the
+     * database. Holds off the writer while copying, as a coop it moves from the dirty map to the flushing map in
+     * between the two copies would otherwise be in neither.
+     */
+    private @NotNull Map<UUID, CoopData> pending() {
+        synchronized (handoff) {
+            // A coop saved again while it is being flushed is in both maps, and the dirty copy is the newer one
+            final Map<UUID, CoopData> pending = new HashMap<>(flushing);
+            pending.putAll(dirty);
+            return pending;
+        }
+    }
+
+    private @NotNull Collection<CoopData> select(final @NotNull String where, final @NotNull Map<UUID, CoopData> pending,
+                                                 final @NotNull Predicate<CoopData> filter, final Object @NotNull ... parameters) {
+        final Map<UUID, CoopData> coops = new LinkedHashMap<>();
+        final Map<UUID, List<CoopData.ChickenData>> chickens = new HashMap<>();
+        final Map<UUID, Map<String, Integer>> outputs = new HashMap<>();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_COOPS + where + " ORDER BY c.id, ch.slot");
+             PreparedStatement outputStatement = connection.prepareStatement(SELECT_OUTPUT + where)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+                outputStatement.setObject(i + 1, parameters[i]);
+            }
+
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    final UUID id = SqlCoopStorage.fromBytes(result.getBytes(1));
+
+                    coops.computeIfAbsent(id, key -> {
+                        try {
+                            final byte[] coopOwner = result.getBytes(2);
+                            return new CoopData(key, coopOwner == null ? null : SqlCoopStorage.fromBytes(coopOwner),
+                                    SqlCoopStorage.fromBytes(result.getBytes(3)), result.getInt(4), result.getInt(5), result.getInt(6), List.of(), Map.of());
+                        } catch (SQLException e) {
+                            throw new CompletionException(e);
+                        }
+                    });
+
+                    final String type = result.getString(8);
+                    if (type != null) {
+                        chickens.computeIfAbsent(id, key -> new ArrayList<>())
+                                .add(new CoopData.ChickenData(type, result.getInt(9), result.getLong(10)));
+                    }
+                }
+            }
+
+            try (ResultSet result = outputStatement.executeQuery()) {
+                while (result.next()) {
+                    outputs.computeIfAbsent(SqlCoopStorage.fromBytes(result.getBytes(1)), key -> new HashMap<>())
+                            .put(result.getString(2), result.getInt(3));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+
+        coops.replaceAll((id, coop) -> new CoopData(coop.id(), coop.owner(), coop.world(), coop.x(), coop.y(), coop.z(),
+                List.copyOf(chickens.getOrDefault(id, List.of())), Map.copyOf(outputs.getOrDefault(id, Map.of()))));
+
+        pending.forEach((id, coop) -> {
+            if (coop != DELETED && filter.test(coop)) coops.put(id, coop);
+            else coops.remove(id);
+        });
+
+        return List.copyOf(coops.values());
+    }
+
+    private static byte @NotNull [] toBytes(final @NotNull UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+
+    private static @NotNull UUID fromBytes(final byte @NotNull [] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.berttowne.materialchicks.storage;
+
+import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.coop.Coop;
+import com.berttowne.materialchicks.util.injection.Service;
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.zaxxer.hikari.HikariConfig;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Owns the configured {@link CoopStorage} and funnels every coop write through it.
+ */
+@Singleton
+@AutoService({Service.class, Listener.class})
+public class StorageService implements Service, Listener {
+
+    private final MaterialChicks plugin;
+    private final Map<UUID, CompletableFuture<Collection<CoopData>>> playerCoops = Maps.newConcurrentMap();
+
+    private CoopStorage storage;
+
+    @Inject
+    public StorageService(MaterialChicks plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void onLoad() {
+        final String type = plugin.getConfig().getString("storage.type", "log");
+
+        switch (type.toLowerCase()) {
+            case "log" -> this.storage = new LogCoopStorage(plugin.getDataFolder().toPath().resolve("storage"),
+                    plugin.getConfig().getLong("storage.log.compact-threshold-mb", 64L) << 20, plugin.getLogger());
+            case "sql" -> {
+                final ConfigurationSection sql = Objects.requireNonNull(plugin.getConfig().getConfigurationSection("storage.sql"));
+                final HikariConfig config = new HikariConfig();
+                config.setJdbcUrl(sql.getString("url"));
+                config.setUsername(sql.getString("username"));
+                config.setPassword(sql.getString("password"));
+                config.setMaximumPoolSize(sql.getInt("pool-size", 4));
+
+                try {
+                    this.storage = new SqlCoopStorage(config, sql.getLong("flush-interval-ms", 1000L), plugin.getLogger());
+                } catch (SQLException | RuntimeException e) {
+                    plugin.getLogger().log(Level.SEVERE, "** UNABLE TO CONNECT TO THE COOP DATABASE **", e);
+                    plugin.getServer().getPluginManager().disablePlugin(plugin);
+
+                    // Every other service relies on the storage, so none of them may boot without it
+                    throw new IllegalStateException("Unable to connect to the coop database", e);
+                }
+            }
+            default -> {
+                plugin.getLogger().severe("** UNKNOWN STORAGE TYPE: " + type + " **");
+                plugin.getServer().getPluginManager().disablePlugin(plugin);
+
+                throw new IllegalStateException("Unknown storage type: " + type);
+            }
+        }
+    }
+
+    @Override
+    public void onDisable() {
+        if (storage != null) storage.close();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onAsyncPreLogin(@NotNull AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        // Start fetching the player's coops while the rest of the login runs
+        playerCoops.put(event.getUniqueId(), storage.loadByOwner(event.getUniqueId()));
+    }
+
+    @EventHandler
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        playerCoops.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Get the coops owned by a player. For online players this is the result prefetched when they logged in.
+     *
+     * @param owner The unique id of the player.
+     * @return A future completed with the coops owned by the player.
+     */
+    public @NotNull CompletableFuture<Collection<CoopData>> getCoops(final @NotNull UUID owner) {
+        final CompletableFuture<Collection<CoopData>> prefetched = playerCoops.get(owner);
+        return prefetched != null && !prefetched.isCompletedExceptionally() ? prefetched : storage.loadByOwner(owner);
+    }
+
+    /**
+     * Queue the current state of a coop to be saved. The coop is snapshotted on the calling thread, which must own it.
+     *
+     * @param coop The coop to save.
+     */
+    public void save(final @NotNull Coop coop) {
+        final CoopData data = coop.toData();
+        storage.save(data);
+
+        // Keep the prefetched coops of the owner up to date rather than fetching them all over again
+        if (data.owner() != null) this.updatePrefetched(data.owner(), data.id(), data);
+    }
+
+    /**
+     * Queue a coop to be deleted from storage.
+     *
+     * @param id The id of the coop to delete.
+     */
+    public void delete(final @NotNull UUID id) {
+        storage.delete(id);
+
+        // The owner is not known here, but only online players have prefetched coops
+        playerCoops.keySet().forEach(owner -> this.updatePrefetched(owner, id, null));
+    }
+
+    private void updatePrefetched(final @NotNull UUID owner, final @NotNull UUID id, final @Nullable CoopData coop) {
+        playerCoops.computeIfPresent(owner, (ignored, prefetched) -> prefetched.thenApply(coops -> {
+            final List<CoopData> updated = new ArrayList<>(coops.size() + 1);
+            for (final CoopData stored : coops) {
+                if (!stored.id().equals(id)) updated.add(stored);
+            }
+
+            if (coop != null) updated.add(coop);
+            return updated;
+        }));
+    }
+
+    public CoopStorage getStorage() {
+        return storage;
+    }
+
+}
\ No newline at end of file
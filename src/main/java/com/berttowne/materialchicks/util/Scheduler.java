@@ -1,6 +1,7 @@
 package com.berttowne.materialchicks.util;
 
 import com.berttowne.materialchicks.MaterialChicks;
+import com.google.common.collect.Maps;
 import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -8,27 +9,23 @@ import org.bukkit.entity.Entity;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 @SuppressWarnings({"UnusedReturnValue", "unused"})
 public final class Scheduler {
 
-    private static final Map<ScheduledTask, Supplier<Boolean>> TASKS = new LinkedHashMap<>();
+    private static final long TICK_NANOS = 50_000_000L;
+    private static final Map<Object, Debounced> DEBOUNCED = Maps.newConcurrentMap();
 
-    static {
-        Scheduler.repeatAsync(() -> TASKS.entrySet().removeIf(entry -> {
-            if (entry.getValue().get()) {
-                entry.getKey().cancel();
-                return true;
-            }
+    // Only set once a timer has been scheduled, so shutting down does not start the wheel just to stop it
+    private static volatile @Nullable TimingWheel wheel;
 
-            return false;
-        }), 0L, 50L, TimeUnit.MILLISECONDS);
-    }
+    private static final ExecutorService BLOCKING = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("MaterialChicks Blocking-", 0).factory());
 
     // ENTITY-ATTACHED TASKS
 
@@ -41,7 +38,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
     public static @Nullable ScheduledTask run(final @NotNull Entity entity, final Consumer<ScheduledTask> run) {
-        return entity.getScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), run, null);
+        return entity.getScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), null);
     }
 
     /**
@@ -66,7 +63,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
     public static @Nullable ScheduledTask later(final @NotNull Entity entity, final Consumer<ScheduledTask> run, final long delay) {
-        return entity.getScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), run, null, delay);
+        return entity.getScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), null, delay);
     }
 
     /**
@@ -93,7 +90,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
     public static @Nullable ScheduledTask repeat(final @NotNull Entity entity, final Consumer<ScheduledTask> run, final long delay, final long period) {
-        return entity.getScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), run, null, delay, period);
+        return entity.getScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), null, delay, period);
     }
 
     /**
@@ -126,16 +123,19 @@ public final class Scheduler {
      * <br>
      * This can easily be solved by checking the condition before scheduling
      * the task.
+     * <p>
+     * The condition is tested by the task itself, on the thread that just
+     * ran it, so it is never polled while the task is not running.
      *
      * @param entity The {@link Entity} to run the task on.
      * @param run    The {@link Runnable} task to execute every period.
      * @param delay  The delay in ticks before the first run of the task.
      * @param period The time period in ticks to wait until running again after each run.
      * @param until  The {@link Supplier} to test when to cancel. When this returns <tt>true</tt> the task will be cancelled.
+     * @return The {@link ScheduledTask} that represents the scheduled task, or {@code null} if the entity has been removed.
      */
-    public static void repeatUntil(final @NotNull Entity entity, final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
-        final ScheduledTask task = Scheduler.repeat(entity, run, delay, period);
-        TASKS.put(task, until);
+    public static @Nullable ScheduledTask repeatUntil(final @NotNull Entity entity, final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
+        return Scheduler.repeat(entity, Scheduler.until(run, until), delay, period);
     }
 
     // GLOBAL THREAD TASKS
@@ -157,7 +157,7 @@ public final class Scheduler {
      * @param run The {@link Consumer} to execute.
      */
     public static @NotNull ScheduledTask run(final Consumer<ScheduledTask> run) {
-        return Bukkit.getGlobalRegionScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), run);
+        return Bukkit.getGlobalRegionScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run));
     }
 
     /**
@@ -179,7 +179,7 @@ public final class Scheduler {
      * @param delay The delay in ticks before running the task.
      */
     public static @NotNull ScheduledTask later(final Consumer<ScheduledTask> run, final long delay) {
-        return Bukkit.getGlobalRegionScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), run, delay);
+        return Bukkit.getGlobalRegionScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), delay);
     }
 
     /**
@@ -203,7 +203,7 @@ public final class Scheduler {
      * @param period The period in ticks to wait until running again after each run.
      */
     public static @NotNull ScheduledTask repeat(final Consumer<ScheduledTask> run, final long delay, final long period) {
-        return Bukkit.getGlobalRegionScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), run, delay, period);
+        return Bukkit.getGlobalRegionScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), delay, period);
     }
 
     /**
@@ -222,15 +222,18 @@ public final class Scheduler {
      * <br>
      * This can easily be solved by checking the condition before scheduling
      * the task.
+     * <p>
+     * The condition is tested by the task itself, on the thread that just
+     * ran it, so it is never polled while the task is not running.
      *
      * @param run    The {@link Runnable} task to execute every period.
      * @param delay  The delay in ticks before the first run of the task.
      * @param period The time period in ticks to wait until running again after each run.
      * @param until  The {@link Supplier} to test when to cancel. When this returns <tt>true</tt> the task will be cancelled.
+     * @return The {@link ScheduledTask} that represents the scheduled task.
      */
-    public static void repeatUntil(final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
-        final ScheduledTask task = Scheduler.repeat(run, delay, period);
-        TASKS.put(task, until);
+    public static @NotNull ScheduledTask repeatUntil(final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
+        return Scheduler.repeat(Scheduler.until(run, until), delay, period);
     }
 
     // REGION THREAD TASKS
@@ -256,7 +259,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask run(final Location location, final Consumer<ScheduledTask> run) {
-        return Bukkit.getRegionScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), location, run);
+        return Bukkit.getRegionScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), location, TaskProfiler.wrap(run));
     }
 
     /**
@@ -282,7 +285,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask later(final Location location, final Consumer<ScheduledTask> run, final long delay) {
-        return Bukkit.getRegionScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), location, run, delay);
+        return Bukkit.getRegionScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), location, TaskProfiler.wrap(run), delay);
     }
 
     /**
@@ -310,7 +313,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask repeat(final Location location, final Consumer<ScheduledTask> run, final long delay, final long period) {
-        return Bukkit.getRegionScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), location, run, delay, period);
+        return Bukkit.getRegionScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), location, TaskProfiler.wrap(run), delay, period);
     }
 
     /**
@@ -329,16 +332,19 @@ public final class Scheduler {
      * <br>
      * This can easily be solved by checking the condition before scheduling
      * the task.
+     * <p>
+     * The condition is tested by the task itself, on the thread that just
+     * ran it, so it is never polled while the task is not running.
      *
      * @param location The {@link Location} to run the task on/around.
      * @param run    The {@link Runnable} task to execute every period.
      * @param delay  The delay in ticks before the first run of the task.
      * @param period The time period in ticks to wait until running again after each run.
      * @param until  The {@link Supplier} to test when to cancel. When this returns <tt>true</tt> the task will be cancelled.
+     * @return The {@link ScheduledTask} that represents the scheduled task.
      */
-    public static void repeatUntil(final Location location, final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
-        final ScheduledTask task = Scheduler.repeat(location, run, delay, period);
-        TASKS.put(task, until);
+    public static @NotNull ScheduledTask repeatUntil(final Location location, final Runnable run, final long delay, final long period, final Supplier<Boolean> until) {
+        return Scheduler.repeat(location, Scheduler.until(run, until), delay, period);
     }
 
     // ASYNC TASKS
@@ -350,7 +356,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask async(final Consumer<ScheduledTask> run) {
-        return Bukkit.getAsyncScheduler().runNow(MaterialChicks.getPlugin(MaterialChicks.class), run);
+        return Bukkit.getAsyncScheduler().runNow(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run));
     }
 
     /**
@@ -360,7 +366,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask async(final Runnable run) {
-        return Bukkit.getAsyncScheduler().runNow(MaterialChicks.getPlugin(MaterialChicks.class), task -> run.run());
+        return Scheduler.async(task -> run.run());
     }
 
     /**
@@ -372,7 +378,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask laterAsync(final Consumer<ScheduledTask> run, final long delay, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), run, delay, unit);
+        return Bukkit.getAsyncScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), delay, unit);
     }
 
     /**
@@ -384,7 +390,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask laterAsync(final Runnable run, final long delay, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runDelayed(MaterialChicks.getPlugin(MaterialChicks.class), task -> run.run(), delay, unit);
+        return Scheduler.laterAsync(task -> run.run(), delay, unit);
     }
 
     /**
@@ -397,7 +403,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask repeatAsync(final Consumer<ScheduledTask> run, final long delay, final long period, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), run, delay, period, unit);
+        return Bukkit.getAsyncScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), TaskProfiler.wrap(run), delay, period, unit);
     }
 
     /**
@@ -410,7 +416,7 @@ public final class Scheduler {
      * @return The {@link ScheduledTask} that represents the scheduled task.
      */
     public static @NotNull ScheduledTask repeatAsync(final Runnable run, final long delay, final long period, final TimeUnit unit) {
-        return Bukkit.getAsyncScheduler().runAtFixedRate(MaterialChicks.getPlugin(MaterialChicks.class), task -> run.run(), delay, period, unit);
+        return Scheduler.repeatAsync(task -> run.run(), delay, period, unit);
     }
 
     /**
@@ -429,16 +435,408 @@ public final class Scheduler {
      * <br>
      * This can easily be solved by checking the condition before scheduling
      * the task.
+     * <p>
+     * The condition is tested by the task itself, on the thread that just
+     * ran it, so it is never polled while the task is not running.
      *
      * @param run    The {@link Runnable} task to execute every period.
      * @param delay  The delay (NOT IN TICKS) before the first run of the task.
      * @param period The time period (NOT IN TICKS) to wait until running again after each run.
      * @param unit   The {@link TimeUnit} to use for the delay and period.
      * @param until  The {@link Supplier} to test when to cancel. When this returns <tt>true</tt> the task will be cancelled.
+     * @return The {@link ScheduledTask} that represents the scheduled task.
+     */
+    public static @NotNull ScheduledTask repeatAsyncUntil(final Runnable run, final long delay, final long period, final TimeUnit unit, final Supplier<Boolean> until) {
+        return Scheduler.repeatAsync(Scheduler.until(run, until), delay, period, unit);
+    }
+
+    /**
+     * Run a delayed task asynchronously on the plugin's {@link TimingWheel} rather than as a task of its own on the
+     * {@link io.papermc.paper.threadedregions.scheduler.AsyncScheduler}. Meant for large numbers of short timers, such
+     * as expiries, that only need to be accurate to a tick. The task runs on the async thread driving the wheel.
+     *
+     * @param run The {@link Runnable} to execute.
+     * @param delay The time delay (NOT IN TICKS) to pass before the task should be executed.
+     * @param unit The {@link TimeUnit} to use for the delay.
+     * @return The {@link TimingWheel.Timeout} that represents the scheduled task.
      */
-    public static void repeatAsyncUntil(final Runnable run, final long delay, final long period, final TimeUnit unit, final Supplier<Boolean> until) {
-        final ScheduledTask task = Scheduler.repeatAsync(run, delay, period, unit);
-        TASKS.put(task, until);
+    public static @NotNull TimingWheel.Timeout timer(final Runnable run, final long delay, final TimeUnit unit) {
+        return Timers.WHEEL.schedule(TaskProfiler.wrap(run), delay, unit);
+    }
+
+    /**
+     * Stop the threads the plugin runs of its own: the one driving the {@link TimingWheel}, and the virtual threads
+     * running {@link #supplyAsync(Callable) blocking work}, which are interrupted. Called once the plugin is disabled,
+     * after which timers no longer run and blocking work fails right away.
+     */
+    public static void shutdown() {
+        final TimingWheel started = Scheduler.wheel;
+        if (started != null) started.stop();
+
+        BLOCKING.shutdownNow();
+    }
+
+    // DEBOUNCED TASKS
+
+    /**
+     * Run a task on an {@link Entity} once no further call with the same key has come in for the given delay. Every
+     * call while the key is pending pushes the run back and replaces the task, so a burst of calls runs only the last
+     * task once, after the burst. Calls for a key that is already pending allocate nothing.
+     * <p>
+     * Keys are compared with {@link Object#equals(Object)} across every debounced and coalesced task, so they should
+     * be specific to what is being done, e.g. the object being saved. If the entity is removed first, the task is
+     * dropped.
+     *
+     * @param key The key identifying the task.
+     * @param entity The {@link Entity} to run the task on.
+     * @param delay The delay in ticks after the last call before running the task.
+     * @param run The {@link Runnable} to execute.
+     */
+    public static void debounce(final @NotNull Object key, final @NotNull Entity entity, final long delay, final @NotNull Runnable run) {
+        if (Scheduler.refresh(key, run, delay, true)) return;
+        Scheduler.debounce(key, run, delay, true, (task, ticks) -> Scheduler.later(entity, task, ticks));
+    }
+
+    /**
+     * Run a task on the region thread owning a {@link Location} once no further call with the same key has come in for
+     * the given delay. See {@link #debounce(Object, Entity, long, Runnable)}.
+     *
+     * @param key The key identifying the task.
+     * @param location The {@link Location} to run the task on/around.
+     * @param delay The delay in ticks after the last call before running the task.
+     * @param run The {@link Runnable} to execute.
+     */
+    public static void debounce(final @NotNull Object key, final @NotNull Location location, final long delay, final @NotNull Runnable run) {
+        if (Scheduler.refresh(key, run, delay, true)) return;
+        Scheduler.debounce(key, run, delay, true, (task, ticks) -> Scheduler.later(location, task, ticks));
+    }
+
+    /**
+     * Run a task on the global thread once no further call with the same key has come in for the given delay.
+     * See {@link #debounce(Object, Entity, long, Runnable)}.
+     *
+     * @param key The key identifying the task.
+     * @param delay The delay in ticks after the last call before running the task.
+     * @param run The {@link Runnable} to execute.
+     */
+    public static void debounce(final @NotNull Object key, final long delay, final @NotNull Runnable run) {
+        if (Scheduler.refresh(key, run, delay, true)) return;
+        Scheduler.debounce(key, run, delay, true, (task, ticks) -> Scheduler.later(task, ticks));
+    }
+
+    /**
+     * Run a task on an {@link Entity} on the next tick, together with every other call with the same key made before
+     * then. Unlike {@link #debounce(Object, Entity, long, Runnable)}, later calls do not push the run back, so a task
+     * runs at most once per key per tick. The last task handed in is the one that runs. If the entity is removed first,
+     * the task is dropped.
+     *
+     * @param key The key identifying the task.
+     * @param entity The {@link Entity} to run the task on.
+     * @param run The {@link Runnable} to execute.
+     */
+    public static void coalesce(final @NotNull Object key, final @NotNull Entity entity, final @NotNull Runnable run) {
+        if (Scheduler.refresh(key, run, 1L, false)) return;
+        Scheduler.debounce(key, run, 1L, false, (task, ticks) -> Scheduler.later(entity, task, ticks));
+    }
+
+    /**
+     * Run a task on the region thread owning a {@link Location} on the next tick, together with every other call with
+     * the same key made before then. See {@link #coalesce(Object, Entity, Runnable)}.
+     *
+     * @param key The key identifying the task.
+     * @param location The {@link Location} to run the task on/around.
+     * @param run The {@link Runnable} to execute.
+     */
+    public static void coalesce(final @NotNull Object key, final @NotNull Location location, final @NotNull Runnable run) {
+        if (Scheduler.refresh(key, run, 1L, false)) return;
+        Scheduler.debounce(key, run, 1L, false, (task, ticks) -> Scheduler.later(location, task, ticks));
+    }
+
+    /**
+     * Run a task on the global thread on the next tick, together with every other call with the same key made before
+     * then. See {@link #coalesce(Object, Entity, Runnable)}.
+     *
+     * @param key The key identifying the task.
+     * @param run The {@link Runnable} to execute.
+     */
+    public static void coalesce(final @NotNull Object key, final @NotNull Runnable run) {
+        if (Scheduler.refresh(key, run, 1L, false)) return;
+        Scheduler.debounce(key, run, 1L, false, (task, ticks) -> Scheduler.later(task, ticks));
+    }
+
+    // Updates the pending task of a key in place, which is the common case in a burst
+    private static boolean refresh(final @NotNull Object key, final @NotNull Runnable run, final long delay, final boolean extend) {
+        final Debounced pending = DEBOUNCED.get(key);
+        return pending != null && pending.refresh(run, delay, extend);
+    }
+
+    private static void debounce(final @NotNull Object key, final @NotNull Runnable run, final long delay, final boolean extend,
+                                 final @NotNull Later later) {
+        final Debounced created = new Debounced(key, run, delay, later);
+
+        while (true) {
+            final Debounced pending = DEBOUNCED.putIfAbsent(key, created);
+
+            if (pending == null) {
+                created.schedule(Math.max(1L, delay));
+                return;
+            }
+
+            if (pending.refresh(run, delay, extend)) return;
+
+            // It already fired, so the task has to run again in a window of its own
+            DEBOUNCED.remove(key, pending);
+        }
+    }
+
+    // FUTURES
+
+    /**
+     * Run blocking work, such as file or network I/O, on a virtual thread of its own rather than on one of the
+     * {@link io.papermc.paper.threadedregions.scheduler.AsyncScheduler}'s threads. Cancelling the returned future
+     * interrupts the work if it is still running.
+     * <p>
+     * Combine with {@link #thenRunOn(CompletableFuture, Entity, Consumer)} and its overloads to apply the result on
+     * the right thread afterwards.
+     *
+     * @param supplier The {@link Callable} doing the work.
+     * @return A {@link CompletableFuture} completed with the result of the work, or with whatever it threw. Fails with
+     * a {@link RejectedExecutionException} once the plugin is disabled.
+     */
+    public static <T> @NotNull CompletableFuture<T> supplyAsync(final @NotNull Callable<T> supplier) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Future<?> work;
+
+        try {
+            work = BLOCKING.submit(() -> {
+                if (future.isDone()) return;
+
+                try {
+                    future.complete(supplier.call());
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            future.completeExceptionally(exception);
+            return future;
+        }
+
+        future.whenComplete((ignored, throwable) -> {
+            if (future.isCancelled()) work.cancel(true);
+        });
+        return future;
+    }
+
+    /**
+     * Run an action with the result of a future on the owning thread of an {@link Entity}, once the future completes.
+     * <p>
+     * When the future fails, so does the returned one without running the action. When the entity is removed before
+     * the action gets to run, the returned future fails with an {@link EntityRemovedException}. Cancelling the
+     * returned future cancels the given one as well, along with the scheduled action.
+     *
+     * @param future The {@link CompletableFuture} to wait for.
+     * @param entity The {@link Entity} whose owning thread runs the action.
+     * @param action The {@link Consumer} to run with the result.
+     * @return A {@link CompletableFuture} completed once the action has run.
+     */
+    public static <T> @NotNull CompletableFuture<Void> thenRunOn(final @NotNull CompletableFuture<T> future, final @NotNull Entity entity,
+                                                               final @NotNull Consumer<T> action) {
+        return Scheduler.thenRunOn(future, action, (run, result) -> {
+            final ScheduledTask task = entity.getScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), run,
+                    () -> result.completeExceptionally(new EntityRemovedException(entity)));
+
+            if (task == null) result.completeExceptionally(new EntityRemovedException(entity));
+            return task;
+        });
+    }
+
+    /**
+     * Run an action with the result of a future on the region thread owning a {@link Location}, once the future
+     * completes. See {@link #thenRunOn(CompletableFuture, Entity, Consumer)}.
+     *
+     * @param future The {@link CompletableFuture} to wait for.
+     * @param location The {@link Location} whose region thread runs the action.
+     * @param action The {@link Consumer} to run with the result.
+     * @return A {@link CompletableFuture} completed once the action has run.
+     */
+    public static <T> @NotNull CompletableFuture<Void> thenRunOn(final @NotNull CompletableFuture<T> future, final @NotNull Location location,
+                                                               final @NotNull Consumer<T> action) {
+        return Scheduler.thenRunOn(future, action, (run, result) ->
+                Bukkit.getRegionScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), location, run));
+    }
+
+    /**
+     * Run an action with the result of a future on the global thread, once the future completes.
+     * See {@link #thenRunOn(CompletableFuture, Entity, Consumer)}.
+     *
+     * @param future The {@link CompletableFuture} to wait for.
+     * @param action The {@link Consumer} to run with the result.
+     * @return A {@link CompletableFuture} completed once the action has run.
+     */
+    public static <T> @NotNull CompletableFuture<Void> thenRunOn(final @NotNull CompletableFuture<T> future, final @NotNull Consumer<T> action) {
+        return Scheduler.thenRunOn(future, action, (run, result) ->
+                Bukkit.getGlobalRegionScheduler().run(MaterialChicks.getPlugin(MaterialChicks.class), run));
+    }
+
+    private static <T> @NotNull CompletableFuture<Void> thenRunOn(final @NotNull CompletableFuture<T> future, final @NotNull Consumer<T> action,
+                                                                final @NotNull Hop hop) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final CompletableFuture<ScheduledTask> scheduled = new CompletableFuture<>();
+
+        // Wrapped here rather than when hopping, so that the profiler sees the caller rather than the completing thread
+        final Object[] value = new Object[1];
+        final Consumer<ScheduledTask> run = TaskProfiler.wrap(task -> {
+            if (result.isDone()) return;
+
+            try {
+                @SuppressWarnings("unchecked") final T resolved = (T) value[0];
+                action.accept(resolved);
+                result.complete(null);
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        });
+
+        future.whenComplete((resolved, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause() : throwable);
+                return;
+            }
+
+            if (result.isDone()) return;
+
+            // Handing the task over to a scheduler publishes the value to the thread running it
+            value[0] = resolved;
+            scheduled.complete(hop.schedule(run, result));
+        });
+
+        result.whenComplete((ignored, throwable) -> {
+            if (!result.isCancelled()) return;
+
+            future.cancel(true);
+            scheduled.thenAccept(task -> {
+                if (task != null) task.cancel();
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Thrown into a future when the {@link Entity} it was meant to continue on is removed first.
+     */
+    public static final class EntityRemovedException extends CancellationException {
+
+        public EntityRemovedException(final @NotNull Entity entity) {
+            super("Entity " + entity.getUniqueId() + " was removed");
+        }
+
+    }
+
+    /**
+     * The pending task of a debounced key. The task is handed over with a single atomic field: refreshing swaps in a
+     * new task only while one is still pending, and firing takes the task out, leaving {@code null} behind. Every task
+     * accepted by {@link #refresh(Runnable, long, boolean)} is therefore either replaced or run exactly once, and a
+     * refresh that loses the race to fire is rejected, so the caller schedules it in a window of its own.
+     */
+    private static final class Debounced {
+
+        private static final AtomicReferenceFieldUpdater<Debounced, Runnable> RUN =
+                AtomicReferenceFieldUpdater.newUpdater(Debounced.class, Runnable.class, "run");
+
+        private final Object key;
+        private final Later later;
+
+        private volatile Runnable run;
+        private volatile long deadline;
+
+        private Debounced(final @NotNull Object key, final @NotNull Runnable run, final long delay, final @NotNull Later later) {
+            this.key = key;
+            this.run = run;
+            this.later = later;
+            this.deadline = System.nanoTime() + Math.max(1L, delay) * TICK_NANOS;
+        }
+
+        private boolean refresh(final @NotNull Runnable run, final long delay, final boolean extend) {
+            // Pushed back first, so that a fire checking the deadline concurrently waits for the new task
+            if (extend) this.deadline = System.nanoTime() + Math.max(1L, delay) * TICK_NANOS;
+
+            Runnable pending;
+            do {
+                pending = this.run;
+                if (pending == null) return false;
+            } while (!RUN.compareAndSet(this, pending, run));
+
+            return true;
+        }
+
+        private void schedule(final long ticks) {
+            if (later.schedule(this::fire, ticks) == null) {
+                // The entity is gone, so whatever is pending is dropped
+                RUN.set(this, null);
+                DEBOUNCED.remove(key, this);
+            }
+        }
+
+        private void fire(final @NotNull ScheduledTask ignored) {
+            final long remaining = deadline - System.nanoTime();
+
+            // Pushed back by a call since this was scheduled, so wait out the rest of the delay
+            if (remaining > TICK_NANOS / 2) {
+                this.schedule((remaining + TICK_NANOS - 1) / TICK_NANOS);
+                return;
+            }
+
+            // A refresh landing between the deadline check and here runs now rather than a full delay later
+            final Runnable taken = RUN.getAndSet(this, null);
+            DEBOUNCED.remove(key, this);
+            if (taken != null) taken.run();
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Later {
+
+        @Nullable ScheduledTask schedule(@NotNull Consumer<ScheduledTask> run, long ticks);
+
+    }
+
+    @FunctionalInterface
+    private interface Hop {
+
+        @Nullable ScheduledTask schedule(@NotNull Consumer<ScheduledTask> run, @NotNull CompletableFuture<Void> result);
+
+    }
+
+    /**
+     * Wrap a task so that it cancels itself as soon as the condition is met after one of its runs.
+     *
+     * @param run The {@link Runnable} task to execute every period.
+     * @param until The {@link Supplier} to test after each run.
+     * @return The {@link Consumer} to schedule.
+     */
+    private static @NotNull Consumer<ScheduledTask> until(final Runnable run, final Supplier<Boolean> until) {
+        return task -> {
+            try {
+                run.run();
+            } finally {
+                if (until.get()) task.cancel();
+            }
+        };
+    }
+
+    // Started on first use, so that the wheel's task is only scheduled once the plugin is enabled
+    private static final class Timers {
+
+        private static final TimingWheel WHEEL = new TimingWheel(50L, TimeUnit.MILLISECONDS);
+
+        static {
+            WHEEL.start();
+            Scheduler.wheel = WHEEL;
+        }
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+package com.berttowne.materialchicks.util;
+
+import com.google.common.collect.Maps;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Times every run of the tasks scheduled through {@link Scheduler}, grouped by the place in the code each task was
+ * scheduled from.
+ * <p>
+ * Profiling is off by default and is decided when a task is scheduled, so tasks scheduled while it is off are never
+ * wrapped and cost nothing extra. While it is on, scheduling a task walks the stack once to find its call site, and
+ * every run reads the clock twice and records the time in a lock-free histogram. Runs slower than the configured
+ * threshold are logged, at most once per call site every few seconds.
+ * <p>
+ * Jobs run by a {@link WorkQueue} are recorded under the {@link Site} they were submitted with, which names the call
+ * site up front so that submitting a job never walks the stack. The queue's own draining tasks are still recorded as
+ * well, so their time includes that of the jobs they ran.
+ * <p>
+ * The histograms are log-linear, in the spirit of HdrHistogram: every power of two nanoseconds is split into eight
+ * buckets, so recorded times and the percentiles derived from them are accurate to within 12.5%.
+ */
+public final class TaskProfiler {
+
+    private static final long WARN_INTERVAL_NANOS = 10_000_000_000L;
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private static final Map<String, TaskStats> STATS = Maps.newConcurrentMap();
+
+    private static volatile boolean enabled;
+    private static volatile long slowNanos;
+    private static volatile Logger logger = Logger.getLogger(TaskProfiler.class.getName());
+
+    private TaskProfiler() { }
+
+    /**
+     * Configure the profiler. Only affects tasks scheduled from now on.
+     *
+     * @param config The {@code profiling} config section, if any.
+     * @param logger The logger to report slow tasks to.
+     */
+    public static void configure(final @Nullable ConfigurationSection config, final @NotNull Logger logger) {
+        TaskProfiler.enabled = config != null && config.getBoolean("enabled", false);
+        TaskProfiler.slowNanos = config == null ? 0L : (long) (config.getDouble("slow-task-millis", 10.0) * 1_000_000L);
+        TaskProfiler.logger = logger;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wrap a task so that its runs are recorded under the call site scheduling it, if profiling is on.
+     *
+     * @param run The {@link Consumer} to wrap.
+     * @return The wrapped task, or the task itself if profiling is off.
+     */
+    public static @NotNull Consumer<ScheduledTask> wrap(final @NotNull Consumer<ScheduledTask> run) {
+        if (!enabled) return run;
+
+        final TaskStats stats = TaskProfiler.statsForCaller();
+        return task -> {
+            final long start = System.nanoTime();
+            try {
+                run.accept(task);
+            } finally {
+                stats.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Wrap a task so that its runs are recorded under the call site scheduling it, if profiling is on.
+     *
+     * @param run The {@link Runnable} to wrap.
+     * @return The wrapped task, or the task itself if profiling is off.
+     */
+    public static @NotNull Runnable wrap(final @NotNull Runnable run) {
+        if (!enabled) return run;
+
+        return TaskProfiler.wrap(run, TaskProfiler.statsForCaller());
+    }
+
+    /**
+     * Get the handle for a place in the code that hands jobs to one of the plugin's own queues. Meant to be kept in a
+     * constant, so that the call site is named once rather than looked up for every job.
+     *
+     * @param site The name of the call site, as {@code Class#method}.
+     * @return The {@link Site} that jobs submitted from there are recorded under.
+     */
+    public static @NotNull Site site(final @NotNull String site) {
+        return new Site(STATS.computeIfAbsent(site, TaskStats::new));
+    }
+
+    /**
+     * Get the call sites whose tasks cost the most, ranked by the given order.
+     *
+     * @param order The order to rank the call sites by, highest first.
+     * @param limit The maximum number of call sites to return.
+     * @return A snapshot of the top call sites.
+     */
+    public static @NotNull List<Summary> top(final @NotNull Comparator<Summary> order, final int limit) {
+        // Snapshot first, as the live numbers keep changing while they are sorted
+        final List<Summary> summaries = new ArrayList<>();
+        for (final TaskStats stats : STATS.values()) {
+            if (stats.calls.sum() > 0L) summaries.add(stats.summarize());
+        }
+
+        summaries.sort(order.reversed());
+        return summaries.subList(0, Math.min(limit, summaries.size()));
+    }
+
+    /**
+     * Forget everything recorded so far. Tasks that are already scheduled keep being recorded.
+     */
+    public static void reset() {
+        STATS.values().forEach(TaskStats::reset);
+    }
+
+    private static @NotNull Runnable wrap(final @NotNull Runnable run, final @NotNull TaskStats stats) {
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                run.run();
+            } finally {
+                stats.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static @NotNull TaskStats statsForCaller() {
+        final String site = WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith(Scheduler.class.getName())
+                        && !frame.getClassName().equals(TaskProfiler.class.getName()))
+                .findFirst()
+                .map(frame -> {
+                    final String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1) + "#" + frame.getMethodName() + ":" + frame.getLineNumber();
+                })
+                .orElse("unknown"));
+
+        return STATS.computeIfAbsent(site, TaskStats::new);
+    }
+
+    /**
+     * A snapshot of the run times of every task scheduled from a single call site.
+     *
+     * @param site The call site, as {@code Class#method:line}, or as named by {@link TaskProfiler#site(String)}.
+     * @param calls The number of runs.
+     * @param totalNanos The time spent in all runs together.
+     * @param p99Nanos The 99th percentile run time, rounded up to the upper end of its histogram bucket.
+     * @param maxNanos The longest run.
+     */
+    public record Summary(@NotNull String site, long calls, long totalNanos, long p99Nanos, long maxNanos) {
+
+        public static final Comparator<Summary> BY_TOTAL = Comparator.comparingLong(Summary::totalNanos);
+        public static final Comparator<Summary> BY_P99 = Comparator.comparingLong(Summary::p99Nanos).thenComparing(BY_TOTAL);
+
+    }
+
+    /**
+     * A place in the code that hands jobs to one of the plugin's own queues, see {@link TaskProfiler#site(String)}.
+     */
+    public static final class Site {
+
+        private final TaskStats stats;
+
+        private Site(final @NotNull TaskStats stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * Wrap a job so that its runs are recorded under this call site rather than under the queue's task, if
+         * profiling is on.
+         *
+         * @param run The job to wrap.
+         * @return The wrapped job, or the job itself if profiling is off.
+         */
+        public @NotNull Runnable wrap(final @NotNull Runnable run) {
+            return enabled ? TaskProfiler.wrap(run, stats) : run;
+        }
+
+    }
+
+    private static final class TaskStats {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * (1 << SUB_BUCKET_BITS) + (2 << SUB_BUCKET_BITS);
+
+        private final String site;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong warnedAt = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+
+        private TaskStats(final @NotNull String site) {
+            this.site = site;
+        }
+
+        private void record(final long nanos) {
+            buckets.incrementAndGet(TaskStats.bucket(nanos));
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+
+            final long threshold = slowNanos;
+            if (threshold <= 0L || nanos < threshold) return;
+
+            final long now = System.nanoTime();
+            final long last = warnedAt.get();
+            if (now - last >= WARN_INTERVAL_NANOS && warnedAt.compareAndSet(last, now)) {
+                logger.warning(String.format("Task scheduled at %s took %.2f ms", site, nanos / 1_000_000.0));
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0L);
+            calls.reset();
+            totalNanos.reset();
+            maxNanos.set(0L);
+        }
+
+        private @NotNull Summary summarize() {
+            return new Summary(site, calls.sum(), totalNanos.sum(), this.getPercentile(0.99), maxNanos.get());
+        }
+
+        /**
+         * Get a percentile of the recorded run times, rounded up to the upper end of its histogram bucket.
+         *
+         * @param percentile The percentile to get, between {@code 0} and {@code 1}.
+         * @return The run time in nanoseconds, or {@code 0} if nothing was recorded.
+         */
+        private long getPercentile(final double percentile) {
+            final long[] counts = new long[BUCKETS];
+            long total = 0L;
+            for (int i = 0; i < BUCKETS; i++) total += counts[i] = buckets.get(i);
+
+            if (total == 0L) return 0L;
+
+            final long rank = Math.max(1L, (long) Math.ceil(percentile * total));
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(TaskStats.upperBound(i), maxNanos.get());
+            }
+
+            return maxNanos.get();
+        }
+
+        // The top four bits of a time pick its bucket within its power of two, times below 16 get a bucket each
+        private static int bucket(final long nanos) {
+            final long value = Math.max(0L, nanos);
+            final int shift = Math.max(0, 63 - SUB_BUCKET_BITS - Long.numberOfLeadingZeros(value));
+            return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+        }
+
+        private static long upperBound(final int bucket) {
+            if (bucket < 2 << SUB_BUCKET_BITS) return bucket;
+
+            final int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+            final long top = bucket - ((long) shift << SUB_BUCKET_BITS);
+            return ((top + 1) << shift) - 1;
+        }
+
+    }
+
+}
\ No newline at end of file
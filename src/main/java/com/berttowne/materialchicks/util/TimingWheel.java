@@ -0,0 +1,265 @@
+package com.berttowne.materialchicks.util;
+
+import com.berttowne.materialchicks.MaterialChicks;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+
+/**
+ * Hierarchical timing wheel holding any number of one-shot timers behind a single repeating async task.
+ * <p>
+ * Time is cut into ticks of a fixed length. The wheel has four levels of 64 slots each. The first level holds the
+ * timers due within the next 64 ticks, one slot per tick, and every further level covers 64 times the span of the one
+ * below it. Whenever a level wraps around, the next slot of the level above is emptied into the levels below it, so
+ * every timer is moved at most once per level before it expires. Timers further away than the top level can reach
+ * wait in its last slot and are placed again each time it comes around.
+ * <p>
+ * Scheduling and cancelling can be done from any thread and are constant time: both only drop the timer into a
+ * lock-free inbox, which the wheel's own task drains before every tick. The slots themselves are only ever touched by
+ * that task, so they need no locking at all. Expiring a tick costs nothing but the timers that are actually due, no
+ * matter how many are pending overall.
+ * <p>
+ * Timers run on the async thread driving the wheel, at most one tick late, and must hop to the right region thread
+ * themselves before they touch the world.
+ */
+public final class TimingWheel {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Only touched by the task driving the wheel
+    private long currentTick;
+
+    private ScheduledTask task;
+
+    /**
+     * Create a wheel that is not ticking yet.
+     *
+     * @param tick The length of a single tick, which is also the precision of every timer.
+     * @param unit The {@link TimeUnit} of the tick length.
+     */
+    public TimingWheel(final long tick, final @NotNull TimeUnit unit) {
+        this.tickNanos = Math.max(1L, unit.toNanos(tick));
+    }
+
+    /**
+     * Start ticking the wheel. Does nothing if it is already running.
+     */
+    public synchronized void start() {
+        if (this.task != null) return;
+
+        final long millis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(tickNanos));
+        this.task = Scheduler.repeatAsync(this::tick, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop ticking the wheel. Pending timers are kept and expire once it is started again.
+     */
+    public synchronized void stop() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+    }
+
+    /**
+     * Run a task once after a delay. Can be called from any thread.
+     *
+     * @param run The {@link Runnable} to execute.
+     * @param delay The time delay (NOT IN TICKS) to pass before the task is executed.
+     * @param unit The {@link TimeUnit} to use for the delay.
+     * @return The {@link Timeout} that represents the scheduled task.
+     */
+    public @NotNull Timeout schedule(final @NotNull Runnable run, final long delay, final @NotNull TimeUnit unit) {
+        final long now = System.nanoTime() - startNanos;
+
+        // Saturated rather than wrapped around, so that a delay of practically forever never comes due at once
+        final long elapsed = now + Math.min(Math.max(0L, unit.toNanos(delay)), Long.MAX_VALUE - now);
+        final Timeout timeout = new Timeout(this, run, Math.ceilDiv(elapsed, tickNanos));
+
+        size.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Get the number of timers that have been scheduled but have neither expired nor been cancelled yet.
+     *
+     * @return The number of pending timers.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void tick() {
+        this.advance((System.nanoTime() - startNanos) / tickNanos);
+    }
+
+    /**
+     * Place and unlink everything waiting in the inboxes, then expire every tick up to the given one. Only called by
+     * the task driving the wheel, and by the benchmarks, which drive it themselves.
+     *
+     * @param target The tick to advance to, counted from when the wheel was created.
+     */
+    void advance(final long target) {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) this.unlink(timeout);
+        while ((timeout = scheduled.poll()) != null) {
+            // Timers that are already due run on the next tick
+            if (timeout.state == Timeout.PENDING) this.place(timeout, currentTick + 1);
+        }
+
+        while (currentTick < target) {
+            final long tick = ++currentTick;
+
+            // Empty the upper levels from the top down, so that a timer can drop more than one level at once
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0L) continue;
+
+                Timeout next = this.clear(level, (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                while (next != null) {
+                    final Timeout current = next;
+                    next = current.next;
+                    current.next = null;
+                    this.place(current, tick);
+                }
+            }
+
+            Timeout next = this.clear(0, (int) tick & SLOT_MASK);
+            while (next != null) {
+                final Timeout current = next;
+                next = current.next;
+                current.next = null;
+                current.expire();
+            }
+        }
+    }
+
+    private void place(final @NotNull Timeout timeout, final long earliest) {
+        final long deadline = Math.max(timeout.deadline, earliest);
+
+        int level = 0;
+        long slot = deadline;
+        while (level < LEVELS - 1 && (deadline >>> (SLOT_BITS * level)) - (currentTick >>> (SLOT_BITS * level)) >= SLOTS) {
+            slot = deadline >>> (SLOT_BITS * ++level);
+        }
+
+        // Out of reach of the top level, so wait in its last slot and get placed again from there
+        final long top = currentTick >>> (SLOT_BITS * level);
+        if (slot - top >= SLOTS) slot = top + SLOTS - 1;
+
+        final Timeout[] wheel = slots[level];
+        final int index = (int) slot & SLOT_MASK;
+
+        timeout.level = level;
+        timeout.slot = index;
+        timeout.prev = null;
+        timeout.next = wheel[index];
+        if (wheel[index] != null) wheel[index].prev = timeout;
+        wheel[index] = timeout;
+    }
+
+    private void unlink(final @NotNull Timeout timeout) {
+        if (timeout.level < 0) return;
+
+        if (timeout.prev != null) timeout.prev.next = timeout.next;
+        else slots[timeout.level][timeout.slot] = timeout.next;
+
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private Timeout clear(final int level, final int slot) {
+        final Timeout head = slots[level][slot];
+        slots[level][slot] = null;
+
+        for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.prev = null;
+            timeout.level = -1;
+        }
+
+        return head;
+    }
+
+    /**
+     * A task scheduled on a {@link TimingWheel}.
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable run;
+        private final long deadline;
+
+        private volatile int state = PENDING;
+
+        // Slot list links, only touched by the task driving the wheel
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(final TimingWheel wheel, final Runnable run, final long deadline) {
+            this.wheel = wheel;
+            this.run = run;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task if it has not run yet. Can be called from any thread.
+         *
+         * @return Whether the task was cancelled, as opposed to having run or been cancelled already.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+
+            wheel.size.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) return;
+
+            wheel.size.decrementAndGet();
+
+            try {
+                run.run();
+            } catch (Throwable throwable) {
+                MaterialChicks.getPlugin(MaterialChicks.class).getLogger().log(Level.SEVERE, "A timer failed", throwable);
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
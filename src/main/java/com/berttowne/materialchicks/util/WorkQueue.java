@@ -0,0 +1,182 @@
+package com.berttowne.materialchicks.util;
+
+import com.berttowne.materialchicks.MaterialChicks;
+import com.google.common.collect.Maps;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Runs jobs on the region owning their location under a fixed time budget per tick.
+ * <p>
+ * Jobs are queued per 16 by 16 chunk section, the unit Folia builds its regions from. While a section has jobs
+ * waiting, a single {@link Scheduler#repeat(Location, java.util.function.Consumer, long, long) repeating task} runs
+ * them in order every tick until the budget, measured with {@link System#nanoTime()}, is used up, and leaves the rest
+ * for the next tick. A burst of work, such as a chunk with a large backlog loading, is therefore spread over as many
+ * ticks as it needs rather than stalling a single one. The task cancels itself as soon as its section runs dry.
+ * <p>
+ * The budget is shared by every section drained on the same thread in the same tick, so a region with many busy
+ * sections spends no more than one budget per tick in total. A thread ticking several regions one after the other may
+ * at worst split a single budget between them. Every section still runs at least one job per tick, even when the
+ * budget is already used up, so a section can never stall.
+ */
+public final class WorkQueue {
+
+    // Block coordinates to 16 by 16 chunk sections
+    private static final int SECTION_SHIFT = 8;
+
+    private final Map<SectionKey, Lane> lanes = Maps.newConcurrentMap();
+    private final ThreadLocal<Budget> budgets = ThreadLocal.withInitial(Budget::new);
+
+    private volatile long budgetNanos = 2_000_000L;
+    private volatile boolean closed;
+
+    /**
+     * Queue a job to run on the region owning a location. Can be called from any thread.
+     *
+     * @param location The location whose region runs the job.
+     * @param site The {@link TaskProfiler.Site} the job's runs are recorded under.
+     * @param job The job to run.
+     */
+    public void submit(final @NotNull Location location, final @NotNull TaskProfiler.Site site, final @NotNull Runnable job) {
+        if (closed) return;
+
+        final SectionKey key = SectionKey.of(location);
+        final Runnable profiled = site.wrap(job);
+
+        while (true) {
+            final Lane lane = lanes.computeIfAbsent(key, ignored -> new Lane(key, location.clone()));
+            if (lane.offer(profiled)) return;
+        }
+    }
+
+    /**
+     * Set the time each region may spend running jobs in a single tick.
+     *
+     * @param budgetNanos The budget in nanoseconds.
+     */
+    public void setBudget(final long budgetNanos) {
+        this.budgetNanos = Math.max(0L, budgetNanos);
+    }
+
+    /**
+     * Get the number of jobs waiting to run. The count is only a snapshot, as regions keep running jobs meanwhile.
+     *
+     * @return The number of queued jobs across every section.
+     */
+    public int size() {
+        int size = 0;
+        for (final Lane lane : lanes.values()) size += lane.size();
+
+        return size;
+    }
+
+    /**
+     * Stop running jobs and drop every job still waiting.
+     */
+    public void close() {
+        this.closed = true;
+
+        for (final Lane lane : lanes.values()) lane.close();
+        lanes.clear();
+    }
+
+    private final class Lane {
+
+        private final SectionKey key;
+        private final Location anchor;
+        private final Queue<Runnable> jobs = new ArrayDeque<>();
+
+        // Guarded by this
+        private ScheduledTask task;
+        private boolean retired;
+
+        private Lane(final @NotNull SectionKey key, final @NotNull Location anchor) {
+            this.key = key;
+            this.anchor = anchor;
+        }
+
+        private synchronized boolean offer(final @NotNull Runnable job) {
+            // Retired lanes are already gone from the map, so the job is retried on a fresh one
+            if (retired) return false;
+
+            jobs.add(job);
+            if (task == null) task = Scheduler.repeat(anchor, this::drain, 1L, 1L);
+
+            return true;
+        }
+
+        private synchronized int size() {
+            return jobs.size();
+        }
+
+        private synchronized void close() {
+            this.retire();
+            jobs.clear();
+        }
+
+        private void drain(final @NotNull ScheduledTask ignored) {
+            final Budget budget = budgets.get();
+
+            // The first section drained on this thread in a tick starts the budget, the others use up what is left
+            final int tick = Bukkit.getCurrentTick();
+            if (budget.tick != tick) {
+                budget.tick = tick;
+                budget.deadline = System.nanoTime() + budgetNanos;
+            }
+
+            do {
+                final Runnable job;
+                synchronized (this) {
+                    job = jobs.poll();
+
+                    if (job == null) {
+                        this.retire();
+                        return;
+                    }
+                }
+
+                try {
+                    job.run();
+                } catch (Throwable throwable) {
+                    MaterialChicks.getPlugin(MaterialChicks.class).getLogger().log(Level.SEVERE, "A queued job failed", throwable);
+                }
+            } while (System.nanoTime() - budget.deadline < 0L);
+        }
+
+        private void retire() {
+            this.retired = true;
+
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+
+            lanes.remove(key, this);
+        }
+
+    }
+
+    private static final class Budget {
+
+        private int tick = -1;
+        private long deadline;
+
+    }
+
+    private record SectionKey(UUID world, int x, int z) {
+
+        private static @NotNull SectionKey of(final @NotNull Location location) {
+            return new SectionKey(location.getWorld().getUID(), location.getBlockX() >> SECTION_SHIFT, location.getBlockZ() >> SECTION_SHIFT);
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -221,6 +221,13 @@ public abstract class GUI {
             ErrorIcon icon = new ErrorIcon(title, subtitle, System.currentTimeMillis() + 3000);
             errorIconMap.put(slot, icon);
             repopulate();
+
+            // Cleared as soon as it expires, rather than whenever the GUI happens to be repopulated next
+            if (player != null) {
+                Scheduler.timer(() -> Scheduler.run(player, () -> {
+                    if (errorIconMap.remove(slot, icon)) repopulate();
+                }), 3000, TimeUnit.MILLISECONDS);
+            }
         };
 
         if (Bukkit.isPrimaryThread()) {
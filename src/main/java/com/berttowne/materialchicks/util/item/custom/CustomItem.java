@@ -1,6 +1,7 @@
 package com.berttowne.materialchicks.util.item.custom;
 
 import com.berttowne.materialchicks.MaterialChicks;
+import com.berttowne.materialchicks.util.Scheduler;
 import com.berttowne.materialchicks.util.TimeFormatter;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -19,6 +20,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract class representing a custom item
@@ -116,17 +118,17 @@ public abstract class CustomItem {
             return false;
         }
 
-        final UUID playerUUID = player.getUniqueId();
-        if (!this.cooldowns.containsKey(playerUUID)) {
+        // Read each level once, as expired cooldowns are removed from another thread
+        final Map<Action, Long> playerCooldowns = this.cooldowns.get(player.getUniqueId());
+        if (playerCooldowns == null) {
             return false;
         }
 
-        final Map<Action, Long> playerCooldowns = this.cooldowns.get(playerUUID);
-        if (!playerCooldowns.containsKey(actionType)) {
+        final Long lastUsed = playerCooldowns.get(actionType);
+        if (lastUsed == null) {
             return false;
         }
 
-        final long lastUsed = playerCooldowns.get(actionType);
         final long currentTime = System.currentTimeMillis();
 
         return currentTime - lastUsed < this.defaultCooldown;
@@ -143,11 +145,19 @@ public abstract class CustomItem {
         }
 
         final UUID playerUUID = player.getUniqueId();
-        if (!this.cooldowns.containsKey(playerUUID)) {
-            this.cooldowns.put(playerUUID, new HashMap<>());
-        }
-
-        this.cooldowns.get(playerUUID).put(actionType, System.currentTimeMillis());
+        final long usedAt = System.currentTimeMillis();
+
+        this.cooldowns.compute(playerUUID, (uuid, playerCooldowns) -> {
+            final Map<Action, Long> updated = playerCooldowns == null ? new ConcurrentHashMap<>() : playerCooldowns;
+            updated.put(actionType, usedAt);
+            return updated;
+        });
+
+        // Forget the cooldown once it is over, so that players who stop using the item do not keep an entry forever
+        Scheduler.timer(() -> this.cooldowns.computeIfPresent(playerUUID, (uuid, playerCooldowns) -> {
+            playerCooldowns.remove(actionType, usedAt);
+            return playerCooldowns.isEmpty() ? null : playerCooldowns;
+        }), this.defaultCooldown, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -161,17 +171,17 @@ public abstract class CustomItem {
             return 0;
         }
 
-        final UUID playerUUID = player.getUniqueId();
-        if (!this.cooldowns.containsKey(playerUUID)) {
+        // Read each level once, as expired cooldowns are removed from another thread
+        final Map<Action, Long> playerCooldowns = this.cooldowns.get(player.getUniqueId());
+        if (playerCooldowns == null) {
             return 0;
         }
 
-        final Map<Action, Long> playerCooldowns = this.cooldowns.get(playerUUID);
-        if (!playerCooldowns.containsKey(actionType)) {
+        final Long lastUsed = playerCooldowns.get(actionType);
+        if (lastUsed == null) {
             return 0;
         }
 
-        final long lastUsed = playerCooldowns.get(actionType);
         final long currentTime = System.currentTimeMillis();
         final long elapsed = currentTime - lastUsed;
 
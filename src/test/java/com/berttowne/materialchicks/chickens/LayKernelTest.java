@@ -0,0 +1,78 @@
+package com.berttowne.materialchicks.chickens;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Checks that {@link VectorLayKernel} produces exactly what the scalar loop in {@link LayKernel} does, on batches that
+ * are not a multiple of the vector length so the scalar remainder is covered too.
+ */
+class LayKernelTest {
+
+    private static final int CAP = 64;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 7, 8, 9, 15, 17, 63, 64, 65, 1_000, 4_099})
+    void vectorMatchesScalarOnMixedBatches(final int count) {
+        final SplittableRandom random = new SplittableRandom(count);
+        final long now = 1_750_000_000_000L;
+
+        final long[] intervals = new long[count];
+        final int[] amounts = new int[count];
+        final long[] nextLays = new long[count];
+
+        // Not due yet, due right now, due a few times, and far behind after a long time unloaded
+        for (int i = 0; i < count; i++) {
+            intervals[i] = random.nextLong(1L, 600_000L);
+            amounts[i] = random.nextInt(1, 5);
+            nextLays[i] = switch (random.nextInt(4)) {
+                case 0 -> now + random.nextLong(1L, 600_000L);
+                case 1 -> now;
+                case 2 -> now - random.nextLong(0L, intervals[i] * 8);
+                default -> now - random.nextLong(0L, 365L * 24 * 3_600_000L);
+            };
+        }
+
+        LayKernelTest.assertSameAsScalar(intervals, amounts, nextLays, count, now);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8, 13})
+    void vectorMatchesScalarOnExactMultiplesOfTheInterval(final int count) {
+        final long now = 1_750_000_000_000L;
+
+        final long[] intervals = new long[count];
+        final int[] amounts = new int[count];
+        final long[] nextLays = new long[count];
+
+        // Whole multiples are where rounding the quotient in doubles is most likely to land one interval off
+        for (int i = 0; i < count; i++) {
+            intervals[i] = 300_000L / (i + 1);
+            amounts[i] = 1;
+            nextLays[i] = now - intervals[i] * (i * 1_000L);
+        }
+
+        LayKernelTest.assertSameAsScalar(intervals, amounts, nextLays, count, now);
+    }
+
+    private static void assertSameAsScalar(final long[] intervals, final int[] amounts, final long[] nextLays, final int count, final long now) {
+        final long[] scalarNextLays = nextLays.clone();
+        final int[] scalarLays = new int[count];
+        final int[] scalarItems = new int[count];
+        LayKernel.advanceScalar(intervals, amounts, scalarNextLays, scalarLays, scalarItems, count, now, CAP);
+
+        final long[] vectorNextLays = nextLays.clone();
+        final int[] vectorLays = new int[count];
+        final int[] vectorItems = new int[count];
+        new VectorLayKernel().advance(intervals, amounts, vectorNextLays, vectorLays, vectorItems, count, now, CAP);
+
+        assertArrayEquals(scalarNextLays, vectorNextLays, "next lay times differ");
+        assertArrayEquals(scalarLays, vectorLays, "credited lays differ");
+        assertArrayEquals(scalarItems, vectorItems, "laid items differ");
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.berttowne.materialchicks.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.bukkit.Chunk;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link SqlCoopStorage} against a real MariaDB server. Every test writes to its own world, so they can share the
+ * container without seeing each other's coops.
+ */
+@Testcontainers
+class SqlCoopStorageIT {
+
+    private static final long FLUSH_MILLIS = 50L;
+    private static final long NEVER_FLUSH_MILLIS = TimeUnit.HOURS.toMillis(1L);
+    private static final double MIN_ROWS_PER_SECOND = 20_000.0;
+    private static final Logger LOGGER = Logger.getLogger(SqlCoopStorageIT.class.getName());
+
+    @Container
+    private static final MariaDBContainer<?> MARIADB = new MariaDBContainer<>("mariadb:11.4");
+
+    @Test
+    void batchedUpsertKeepsOnlyTheLatestSave() throws Exception {
+        final UUID world = UUID.randomUUID();
+        final UUID id = UUID.randomUUID();
+
+        final SqlCoopStorage storage = SqlCoopStorageIT.open(NEVER_FLUSH_MILLIS);
+        for (int i = 1; i <= 5; i++) storage.save(SqlCoopStorageIT.coop(id, world, 0, 0, i, i));
+        storage.save(SqlCoopStorageIT.coop(id, world, 0, 0, 2, 7));
+
+        // Every save was coalesced into a single dirty coop
+        assertEquals(1, storage.getQueueDepth());
+        storage.close();
+
+        assertEquals(1 + 2 + 1, storage.getRowsWritten());
+
+        final SqlCoopStorage reopened = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        try {
+            final CoopData coop = SqlCoopStorageIT.single(reopened.loadChunk(world, Chunk.getChunkKey(0, 0)).get(10L, TimeUnit.SECONDS));
+            assertEquals(2, coop.chickens().size(), "Chickens past the last save should be trimmed");
+            assertEquals(Map.of("minecraft:iron_ingot", 7), coop.output());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void flushWritesQueuedSavesInTheBackground() throws Exception {
+        final UUID world = UUID.randomUUID();
+        final UUID id = UUID.randomUUID();
+
+        final SqlCoopStorage storage = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        try {
+            storage.save(SqlCoopStorageIT.coop(id, world, 16, 16, 3, 1));
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (storage.getQueueDepth() > 0 || storage.getRowsWritten() == 0L) {
+                assertTrue(System.nanoTime() < deadline, "The writer never flushed the queued coop");
+                Thread.sleep(FLUSH_MILLIS);
+            }
+
+            assertTrue(storage.getLastFlushNanos() > 0L);
+            assertTrue(storage.getMaxFlushNanos() >= storage.getAverageFlushNanos());
+        } finally {
+            storage.close();
+        }
+
+        final SqlCoopStorage reopened = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        try {
+            final CoopData coop = SqlCoopStorageIT.single(reopened.loadChunk(world, Chunk.getChunkKey(1, 1)).get(10L, TimeUnit.SECONDS));
+            assertEquals(id, coop.id());
+            assertEquals(3, coop.chickens().size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void loadChunkSeesQueuedWritesAndFiltersByChunk() throws Exception {
+        final UUID world = UUID.randomUUID();
+        final UUID otherWorld = UUID.randomUUID();
+        final UUID flushed = UUID.randomUUID();
+        final UUID queued = UUID.randomUUID();
+
+        final SqlCoopStorage setup = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        setup.save(SqlCoopStorageIT.coop(flushed, world, 1, 1, 1, 1));
+        setup.save(SqlCoopStorageIT.coop(UUID.randomUUID(), world, 40, 40, 1, 1));
+        setup.save(SqlCoopStorageIT.coop(UUID.randomUUID(), otherWorld, 1, 1, 1, 1));
+        setup.close();
+
+        final SqlCoopStorage storage = SqlCoopStorageIT.open(NEVER_FLUSH_MILLIS);
+        try {
+            storage.save(SqlCoopStorageIT.coop(queued, world, 2, 2, 1, 1));
+
+            final Collection<CoopData> coops = storage.loadChunk(world, Chunk.getChunkKey(0, 0)).get(10L, TimeUnit.SECONDS);
+            assertEquals(2, coops.size());
+            assertTrue(coops.stream().anyMatch(coop -> coop.id().equals(flushed)));
+            assertTrue(coops.stream().anyMatch(coop -> coop.id().equals(queued)), "Queued writes should be visible before they are flushed");
+
+            // Moving a queued coop out of the chunk hides the stored copy as well
+            storage.save(SqlCoopStorageIT.coop(flushed, world, 40, 1, 1, 1));
+            final Collection<CoopData> moved = storage.loadChunk(world, Chunk.getChunkKey(0, 0)).get(10L, TimeUnit.SECONDS);
+            assertEquals(List.of(queued), moved.stream().map(CoopData::id).toList());
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    void deleteRemovesTheCoopAndItsRows() throws Exception {
+        final UUID world = UUID.randomUUID();
+        final UUID id = UUID.randomUUID();
+        final long chunkKey = Chunk.getChunkKey(0, 0);
+
+        final SqlCoopStorage setup = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        setup.save(SqlCoopStorageIT.coop(id, world, 0, 0, 4, 4));
+        setup.close();
+
+        final SqlCoopStorage storage = SqlCoopStorageIT.open(NEVER_FLUSH_MILLIS);
+        storage.delete(id);
+        assertTrue(storage.loadChunk(world, chunkKey).get(10L, TimeUnit.SECONDS).isEmpty(), "Queued deletes should hide the stored coop");
+        storage.close();
+
+        final SqlCoopStorage reopened = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        try {
+            assertTrue(reopened.loadChunk(world, chunkKey).get(10L, TimeUnit.SECONDS).isEmpty());
+
+            // Saving the same id again must not resurrect chickens or output left behind by the delete
+            reopened.save(SqlCoopStorageIT.coop(id, world, 0, 0, 0, 0));
+            final CoopData coop = SqlCoopStorageIT.single(reopened.loadChunk(world, chunkKey).get(10L, TimeUnit.SECONDS));
+            assertTrue(coop.chickens().isEmpty());
+            assertTrue(coop.output().isEmpty());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void throughput() throws Exception {
+        final int coops = 10_000;
+        final int chickens = 4;
+        final UUID world = UUID.randomUUID();
+
+        final SqlCoopStorage storage = SqlCoopStorageIT.open(NEVER_FLUSH_MILLIS);
+        for (int i = 0; i < coops; i++) {
+            storage.save(SqlCoopStorageIT.coop(UUID.randomUUID(), world, (i % 100) * 16, (i / 100) * 16, chickens, i + 1));
+        }
+
+        final long start = System.nanoTime();
+        storage.close();
+        final long elapsed = System.nanoTime() - start;
+
+        assertEquals((long) coops * (1 + chickens + 1), storage.getRowsWritten());
+
+        final double rowsPerSecond = storage.getRowsWritten() / (elapsed / 1_000_000_000.0);
+        LOGGER.info(String.format("Flushed %d coops (%d rows) in %.1f ms, %.0f coops/s, %.0f rows/s",
+                coops, storage.getRowsWritten(), elapsed / 1_000_000.0, coops / (elapsed / 1_000_000_000.0), rowsPerSecond));
+        assertTrue(rowsPerSecond >= MIN_ROWS_PER_SECOND, String.format("Only wrote %.0f rows/s, at least %.0f expected", rowsPerSecond, MIN_ROWS_PER_SECOND));
+
+        final SqlCoopStorage reopened = SqlCoopStorageIT.open(FLUSH_MILLIS);
+        try {
+            final long readStart = System.nanoTime();
+            int loaded = 0;
+            for (int i = 0; i < coops; i++) {
+                loaded += reopened.loadChunk(world, Chunk.getChunkKey(i % 100, i / 100)).get(10L, TimeUnit.SECONDS).size();
+            }
+            final long readElapsed = System.nanoTime() - readStart;
+
+            assertEquals(coops, loaded);
+            LOGGER.info(String.format("Loaded %d chunks in %.1f ms, %.0f chunks/s",
+                    coops, readElapsed / 1_000_000.0, coops / (readElapsed / 1_000_000_000.0)));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static @NotNull SqlCoopStorage open(final long flushIntervalMillis) throws Exception {
+        final HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(MARIADB.getJdbcUrl());
+        config.setUsername(MARIADB.getUsername());
+        config.setPassword(MARIADB.getPassword());
+        config.setMaximumPoolSize(4);
+
+        return new SqlCoopStorage(config, flushIntervalMillis, LOGGER);
+    }
+
+    private static @NotNull CoopData coop(final @NotNull UUID id, final @NotNull UUID world, final int x, final int z,
+                                          final int chickens, final int output) {
+        final List<CoopData.ChickenData> data = new ArrayList<>();
+        for (int slot = 0; slot < chickens; slot++) data.add(new CoopData.ChickenData("IRON", slot, 1_000L * slot));
+
+        return new CoopData(id, null, world, x, 64, z, data, output == 0 ? Map.of() : Map.of("minecraft:iron_ingot", output));
+    }
+
+    private static @NotNull CoopData single(final @NotNull Collection<CoopData> coops) {
+        assertEquals(1, coops.size());
+        return coops.iterator().next();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.berttowne.materialchicks.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives a {@link TimingWheel} by hand through {@link TimingWheel#advance(long)}. Ticks are a minute long, so the time
+ * that passes while a test runs never adds up to a tick, and a timer scheduled {@code n} ticks out is due at tick
+ * {@code n}, or {@code n + 1} as the clock has already moved on a little when it is scheduled.
+ */
+class TimingWheelTest {
+
+    private static final long SLOTS = 64L;
+
+    private final TimingWheel wheel = new TimingWheel(1L, TimeUnit.MINUTES);
+
+    @Test
+    void alreadyDueTimersRunOnTheNextTick() {
+        final AtomicInteger runs = new AtomicInteger();
+
+        wheel.schedule(runs::incrementAndGet, 0L, TimeUnit.MINUTES);
+        wheel.advance(0L);
+        assertEquals(0, runs.get(), "Nothing may run before the wheel has ticked");
+        wheel.advance(1L);
+        assertEquals(1, runs.get());
+
+        // Due at tick 1 as well, which the wheel has long passed by the time it places the timer
+        wheel.advance(500L);
+        wheel.schedule(runs::incrementAndGet, 0L, TimeUnit.MINUTES);
+        wheel.advance(500L);
+        assertEquals(1, runs.get());
+        wheel.advance(501L);
+        assertEquals(2, runs.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersCascadeAcrossLevelOneAndTwoWrapPoints() {
+        for (final long ticks : new long[]{SLOTS - 1, SLOTS, SLOTS + 1, SLOTS * SLOTS - 1, SLOTS * SLOTS, SLOTS * SLOTS + 1,
+                SLOTS * SLOTS * SLOTS + 7}) {
+            this.assertRunsAfter(ticks);
+        }
+    }
+
+    @Test
+    void timersBeyondTheTopLevelWaitAndArePlacedAgain() {
+        // The top level reaches 64^4 ticks, anything further has to go round its last slot more than once
+        this.assertRunsAfter(SLOTS * SLOTS * SLOTS * SLOTS * 2 + 3);
+    }
+
+    @Test
+    void timersRunInTheirTickWhateverLevelTheyStartIn() {
+        final SplittableRandom random = new SplittableRandom(7L);
+        final long horizon = SLOTS * SLOTS * SLOTS * 2;
+
+        final List<long[]> timers = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            final long[] timer = {random.nextLong(0L, horizon), -1L};
+            timers.add(timer);
+            wheel.schedule(() -> timer[1] = 1L, timer[0], TimeUnit.MINUTES);
+        }
+
+        for (long tick = 0L; tick <= horizon + 1; tick += 997L) {
+            wheel.advance(tick);
+
+            for (final long[] timer : timers) {
+                final boolean ran = timer[1] == 1L;
+                if (ran) assertTrue(timer[0] <= tick, "A timer due after tick " + timer[0] + " ran at tick " + tick);
+                else assertTrue(timer[0] + 1 > tick, "A timer due at tick " + timer[0] + " had not run by tick " + tick);
+            }
+        }
+
+        wheel.advance(horizon + 2);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void delaysTooLongToCountInNanosecondsNeverRun() {
+        final AtomicInteger runs = new AtomicInteger();
+
+        wheel.schedule(runs::incrementAndGet, Long.MAX_VALUE, TimeUnit.DAYS);
+        wheel.advance(SLOTS * SLOTS);
+        assertEquals(0, runs.get());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void cancelledTimersNeverRun() {
+        final AtomicInteger runs = new AtomicInteger();
+
+        // Cancelled while still in the inbox, before the wheel ever placed it
+        final TimingWheel.Timeout unplaced = wheel.schedule(runs::incrementAndGet, 10L, TimeUnit.MINUTES);
+        assertTrue(unplaced.cancel());
+
+        // Cancelled once it sits in a slot of the second level
+        final TimingWheel.Timeout placed = wheel.schedule(runs::incrementAndGet, SLOTS * 3, TimeUnit.MINUTES);
+        wheel.advance(1L);
+        assertTrue(placed.cancel());
+        assertFalse(placed.cancel(), "A timer can only be cancelled once");
+
+        final TimingWheel.Timeout kept = wheel.schedule(runs::incrementAndGet, SLOTS * 3, TimeUnit.MINUTES);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(SLOTS * 4);
+        assertEquals(1, runs.get());
+        assertTrue(unplaced.isCancelled());
+        assertTrue(placed.isCancelled());
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel(), "A timer that ran can no longer be cancelled");
+        assertEquals(0, wheel.size());
+    }
+
+    private void assertRunsAfter(final long ticks) {
+        final TimingWheel wheel = new TimingWheel(1L, TimeUnit.MINUTES);
+        final AtomicInteger runs = new AtomicInteger();
+
+        wheel.schedule(runs::incrementAndGet, ticks, TimeUnit.MINUTES);
+        wheel.advance(ticks - 1);
+        assertEquals(0, runs.get(), "A timer " + ticks + " ticks out ran early");
+        wheel.advance(ticks + 1);
+        assertEquals(1, runs.get(), "A timer " + ticks + " ticks out did not run in time");
+    }
+
+}
\ No newline at end of file
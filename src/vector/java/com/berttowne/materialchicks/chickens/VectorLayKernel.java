@@ -0,0 +1,78 @@
+package com.berttowne.materialchicks.chickens;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link LayKernel} implementation on top of the {@code jdk.incubator.vector} API. Only ever loaded reflectively once
+ * the module is known to be present, so that the plugin still loads on servers started without it. It lives in its own
+ * source set, which is the only one compiled with the incubating module, and is packaged into the same jar.
+ * <p>
+ * Every lane works on one chicken in 64 bits. There is no vector instruction for integer division, and converting
+ * doubles back to longs is not intrinsified on every JDK, so the number of missed intervals is divided in doubles,
+ * rounded with the 2^52 bias trick and then corrected by one in either direction. That is exact for any time span
+ * below 2^52 intervals.
+ */
+final class VectorLayKernel implements LayKernel.Kernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    private static final double ROUNDING_BIAS = 0x1p52;
+    private static final long ROUNDING_BIAS_BITS = Double.doubleToRawLongBits(ROUNDING_BIAS);
+
+    @Override
+    public void advance(final long @NotNull [] intervals, final int @NotNull [] amounts, final long @NotNull [] nextLays,
+                        final int @NotNull [] lays, final int @NotNull [] items, final int count, final long now, final int cap) {
+        final int bound = LONGS.loopBound(count);
+        int i = 0;
+
+        for (; i < bound; i += LONGS.length()) {
+            final LongVector nextLay = LongVector.fromArray(LONGS, nextLays, i);
+
+            final LongVector elapsed = nextLay.neg().add(now);
+            final VectorMask<Long> due = elapsed.compare(VectorOperators.GE, 0L);
+
+            if (!due.anyTrue()) {
+                IntVector.zero(INTS).intoArray(lays, i);
+                IntVector.zero(INTS).intoArray(items, i);
+                continue;
+            }
+
+            final LongVector interval = LongVector.fromArray(LONGS, intervals, i);
+            final LongVector amount = (LongVector) IntVector.fromArray(INTS, amounts, i).convertShape(VectorOperators.I2L, LONGS, 0);
+
+            final DoubleVector quotient = ((DoubleVector) elapsed.convertShape(VectorOperators.L2D, DOUBLES, 0))
+                    .div((DoubleVector) interval.convertShape(VectorOperators.L2D, DOUBLES, 0));
+            // Adding 2^52 pushes the fraction out of the mantissa, leaving the rounded quotient in the low bits
+            LongVector whole = quotient.add(ROUNDING_BIAS).reinterpretAsLongs().sub(ROUNDING_BIAS_BITS);
+
+            // Rounding, both in the division and to the nearest whole number, can land one interval off either way
+            whole = whole.sub(1L, whole.mul(interval).compare(VectorOperators.GT, elapsed));
+            whole = whole.add(1L, whole.add(1L).mul(interval).compare(VectorOperators.LE, elapsed));
+
+            final LongVector missed = whole.add(1L);
+            nextLay.add(missed.mul(interval), due).intoArray(nextLays, i);
+
+            final LongVector credited = missed.min((long) cap).blend(0L, due.not());
+
+            ((IntVector) credited.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(lays, i);
+            ((IntVector) credited.mul(amount).convertShape(VectorOperators.L2I, INTS, 0)).intoArray(items, i);
+        }
+
+        LayKernel.advanceScalar(intervals, amounts, nextLays, lays, items, i, count, now, cap);
+    }
+
+    @Override
+    public boolean isUseful() {
+        return LONGS.length() > 1;
+    }
+
+}
\ No newline at end of file